@@ -0,0 +1,55 @@
+package compiler.benchmarks;
+
+import compiler.CorpusGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Synthetic TinyS inputs written by {@link CorpusGenerator}, each with a statement mix dominated by one
+ * kind of token. Every corpus is valid TinyS, so the benchmarks measure lexing and never the error path.
+ * Generation is seeded, so a given corpus and size always produce the same bytes.
+ */
+public enum Corpus {
+    /**
+     * Assignments, calls, while and if statements, made almost entirely of identifiers and keywords.
+     */
+    IDENTIFIERS(new CorpusGenerator.Mix(1, 0, 0, 0)),
+    /**
+     * Mostly block and line comments, with a statement now and then.
+     */
+    COMMENTS(new CorpusGenerator.Mix(1, 6, 0, 0)),
+    /**
+     * Mostly calls whose argument is a string literal.
+     */
+    STRINGS(new CorpusGenerator.Mix(1, 0, 6, 0)),
+    /**
+     * Mostly arithmetic over int and double literals.
+     */
+    NUMBERS(new CorpusGenerator.Mix(1, 0, 0, 6)),
+    /**
+     * The default mix, modeled on the sample program shipped with the compiler.
+     */
+    FIBONACCI(CorpusGenerator.Mix.DEFAULT);
+
+    private final CorpusGenerator.Mix mix;
+
+    Corpus(CorpusGenerator.Mix mix) {
+        this.mix = mix;
+    }
+
+    /**
+     * Generates at least {@code size} bytes of this corpus.
+     */
+    public byte[] generate(int size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 4096);
+        try {
+            new CorpusGenerator(mix, ordinal() * 31L + size).write(out, size);
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
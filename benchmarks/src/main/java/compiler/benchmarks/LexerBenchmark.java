@@ -0,0 +1,139 @@
+package compiler.benchmarks;
+
+import compiler.LexicalAnalyzer.LexicalAnalyzer;
+import compiler.LexicalAnalyzer.Token;
+import compiler.LexicalAnalyzer.TokenBuffer;
+import compiler.LexicalAnalyzer.TokenKind;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexer throughput over each {@link Corpus}, for both engines.
+ * <p>
+ * Besides operations per second, every benchmark reports the {@code megabytes} and {@code tokens}
+ * lexed per second. Run with {@code -prof gc} to get the allocation rate; dividing
+ * {@code gc.alloc.rate.norm} by the tokens per operation gives the allocation per token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LexerBenchmark {
+
+    @Param({"IDENTIFIERS", "COMMENTS", "STRINGS", "NUMBERS", "FIBONACCI"})
+    public Corpus corpus;
+
+    @Param({"CLASSIC", "TABLE"})
+    public LexicalAnalyzer.Engine engine;
+
+    @Param({"4194304"})
+    public int size;
+
+    private Path file;
+    private byte[] content;
+    private LexicalAnalyzer reusable;
+    private double megabytes;
+    private int tokens;
+
+    /**
+     * Per-iteration totals; JMH divides them by the elapsed time.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public double megabytes;
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+            tokens = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        content = corpus.generate(size);
+        reusable = new LexicalAnalyzer(engine);
+        file = Files.createTempFile("tinys-" + corpus.name().toLowerCase() + "-", ".s");
+        Files.write(file, content);
+        megabytes = content.length / (1024.0 * 1024.0);
+        // Also checks that the corpus is valid: a lexical error here fails the trial
+        tokens = new LexicalAnalyzer(file.toString(), engine).tokenize().size();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Lexes the whole file into a packed {@link TokenBuffer}.
+     */
+    @Benchmark
+    public TokenBuffer tokenize(Throughput throughput) throws IOException {
+        TokenBuffer result = new LexicalAnalyzer(file.toString(), engine).tokenize();
+        count(throughput);
+        return result;
+    }
+
+    /**
+     * Pulls one {@link Token} object at a time, as callers of {@code nextToken()} do.
+     */
+    @Benchmark
+    public void nextToken(Throughput throughput, Blackhole blackhole) throws IOException {
+        LexicalAnalyzer lexicalAnalyzer = new LexicalAnalyzer(file.toString(), engine);
+        Token token;
+        do {
+            token = lexicalAnalyzer.nextToken();
+            blackhole.consume(token);
+        } while (token.getKind() != TokenKind.EOF);
+        count(throughput);
+    }
+
+    /**
+     * Pushes tokens to a callback without creating any per-token object.
+     */
+    @Benchmark
+    public void drainTo(Throughput throughput, Blackhole blackhole) throws IOException {
+        new LexicalAnalyzer(file.toString(), engine)
+                .drainTo((kind, offset, length, symbol, value) -> blackhole.consume(offset));
+        count(throughput);
+    }
+
+    /**
+     * Same as {@link #drainTo}, but over the in-memory content with one lexer reset for every operation,
+     * so the per-file setup is left out.
+     */
+    @Benchmark
+    public void reused(Throughput throughput, Blackhole blackhole) {
+        reusable.reset(content)
+                .drainTo((kind, offset, length, symbol, value) -> blackhole.consume(offset));
+        count(throughput);
+    }
+
+    private void count(Throughput throughput) {
+        throughput.megabytes += megabytes;
+        throughput.tokens += tokens;
+    }
+}
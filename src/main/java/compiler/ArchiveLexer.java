@@ -0,0 +1,248 @@
+package compiler;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Lexes the {@code .s} entries of a source archive ({@code .zip}, {@code .tar}, {@code .tar.gz},
+ * {@code .tgz}) or of a single gzipped source ({@code .s.gz}) in one sequential read.
+ * Entries are decompressed straight from the archive into memory and reported as
+ * {@code archive!/entry}; nothing is extracted to disk. Other entries are skipped.
+ */
+public class ArchiveLexer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ArchiveLexer() {
+    }
+
+    /**
+     * Whether the path names an archive this class can read, judging by its extension.
+     */
+    public static boolean isArchive(Path path) {
+        String name = path.getFileName() != null ? path.getFileName().toString() : "";
+        return name.endsWith(".zip") || name.endsWith(".tar") || name.endsWith(".tar.gz")
+                || name.endsWith(".tgz") || name.endsWith(".s.gz");
+    }
+
+    /**
+     * Lexes every {@code .s} entry of the archive in archive order, writing the same report
+     * {@link Main} prints for a file. An archive that cannot be read counts as one failed file.
+     * @return The totals of the archive; {@link BatchLexer.Summary#files()} counts its entries.
+     */
+    public static BatchLexer.Summary run(Path archive, PrintStream out, BatchLexer.Options options) {
+        long start = System.nanoTime();
+        Totals totals = new Totals();
+        String name = archive.toString();
+        String fileName = archive.getFileName().toString();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(archive), BUFFER_SIZE)) {
+            if (fileName.endsWith(".zip")) {
+                lexZip(name, in, out, options, totals);
+            } else if (fileName.endsWith(".tar")) {
+                lexTar(name, in, out, options, totals);
+            } else if (fileName.endsWith(".s.gz")) {
+                String entry = fileName.substring(0, fileName.length() - ".gz".length());
+                totals.add(Main.report(name + "!/" + entry, new GZIPInputStream(in, BUFFER_SIZE).readAllBytes(),
+                        options, out, TokenPrinter.DEFAULT_BUFFER_SIZE));
+            } else {
+                lexTar(name, new GZIPInputStream(in, BUFFER_SIZE), out, options, totals);
+            }
+        } catch (IOException e) {
+            // Entries already reported are kept; the rest of the archive is lost
+            printFailure(name, e instanceof EOFException ? "Archivo comprimido truncado" : "Archivo comprimido inválido o dañado", out, options);
+            totals.files++;
+            totals.errors++;
+        }
+        return new BatchLexer.Summary(totals.files, totals.tokens, totals.errors, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void lexZip(String name, InputStream in, PrintStream out, BatchLexer.Options options, Totals totals) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in);
+        for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+            if (!entry.isDirectory() && entry.getName().endsWith(".s")) {
+                totals.add(Main.report(name + "!/" + entry.getName(), zip.readAllBytes(), options, out, TokenPrinter.DEFAULT_BUFFER_SIZE));
+            }
+        }
+    }
+
+    private static void lexTar(String name, InputStream in, PrintStream out, BatchLexer.Options options, Totals totals) throws IOException {
+        TarReader tar = new TarReader(in);
+        for (String entry = tar.next(); entry != null; entry = tar.next()) {
+            if (entry.endsWith(".s")) {
+                totals.add(Main.report(name + "!/" + entry, tar.read(), options, out, TokenPrinter.DEFAULT_BUFFER_SIZE));
+            }
+        }
+    }
+
+    private static void printFailure(String name, String description, PrintStream out, BatchLexer.Options options) {
+        TokenPrinter printer = new TokenPrinter(out, options.format(), options.color(), options.charset(), 1024);
+        try {
+            printer.printHeader(name);
+            printer.printFailure(name, description);
+            printer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Totals {
+        int files;
+        long tokens;
+        int errors;
+
+        void add(BatchLexer.FileReport report) {
+            files++;
+            tokens += report.tokens();
+            if (report.failed()) {
+                errors++;
+            }
+        }
+    }
+
+    /**
+     * Reads the regular files of a tar stream (POSIX ustar, with GNU and pax long names) one after the other.
+     */
+    private static final class TarReader {
+        private static final int BLOCK_SIZE = 512;
+
+        private final InputStream in;
+        private final byte[] header = new byte[BLOCK_SIZE];
+        private long remaining;
+        private long padding;
+
+        TarReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Skips whatever is left of the current entry and moves to the next regular file.
+         * @return Its path inside the archive, or {@code null} at the end of the archive.
+         */
+        String next() throws IOException {
+            String longName = null;
+            while (true) {
+                in.skipNBytes(remaining + padding);
+                remaining = 0;
+                padding = 0;
+                int read = in.readNBytes(header, 0, BLOCK_SIZE);
+                if (read == 0 || isZeroBlock()) {
+                    return null;
+                }
+                if (read < BLOCK_SIZE) {
+                    throw new EOFException("Cabecera de tar incompleta");
+                }
+                long size = parseSize();
+                remaining = size;
+                padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+                byte type = header[156];
+                if (type == 'L') {
+                    // GNU long name: the entry holds the name of the next one
+                    longName = trim(read());
+                } else if (type == 'x') {
+                    // pax extended header: only the path is used
+                    String path = paxPath(read());
+                    if (path != null) {
+                        longName = path;
+                    }
+                } else if (type == '0' || type == '\0' || type == '7') {
+                    return longName != null ? longName : headerName();
+                } else {
+                    // Directories, links and global headers carry no source
+                    longName = null;
+                }
+            }
+        }
+
+        /**
+         * Reads the whole content of the current entry.
+         */
+        byte[] read() throws IOException {
+            if (remaining > Integer.MAX_VALUE - 8) {
+                throw new IOException("Entrada de tar demasiado grande");
+            }
+            byte[] content = in.readNBytes((int) remaining);
+            if (content.length < remaining) {
+                throw new EOFException("Entrada de tar incompleta");
+            }
+            remaining = 0;
+            return content;
+        }
+
+        private boolean isZeroBlock() {
+            for (byte b : header) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String headerName() {
+            String name = field(0, 100);
+            if (header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r') {
+                String prefix = field(345, 155);
+                if (!prefix.isEmpty()) {
+                    return prefix + "/" + name;
+                }
+            }
+            return name;
+        }
+
+        private long parseSize() throws IOException {
+            long size = 0;
+            for (int i = 124; i < 136; i++) {
+                int b = header[i];
+                if (b == 0 || b == ' ') {
+                    if (size > 0) {
+                        break;
+                    }
+                } else if (b >= '0' && b <= '7') {
+                    size = size * 8 + (b - '0');
+                } else {
+                    throw new IOException("Tamaño de entrada de tar inválido");
+                }
+            }
+            return size;
+        }
+
+        private String field(int offset, int length) {
+            int end = offset;
+            while (end < offset + length && header[end] != 0) {
+                end++;
+            }
+            return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+        }
+
+        private static String trim(byte[] name) {
+            int end = name.length;
+            while (end > 0 && name[end - 1] == 0) {
+                end--;
+            }
+            return new String(name, 0, end, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * The {@code path} record of a pax header, made of {@code "<length> <key>=<value>\n"} records.
+         */
+        private static String paxPath(byte[] records) {
+            String text = new String(records, StandardCharsets.UTF_8);
+            for (String record : text.split("\n")) {
+                int space = record.indexOf(' ');
+                if (space > 0 && record.startsWith("path=", space + 1)) {
+                    return record.substring(space + 1 + "path=".length());
+                }
+            }
+            return null;
+        }
+    }
+}
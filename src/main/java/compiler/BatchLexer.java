@@ -0,0 +1,181 @@
+package compiler;
+
+import compiler.LexicalAnalyzer.SymbolTable;
+import compiler.LexicalAnalyzer.TokenCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Lexes many files concurrently on a work-stealing pool.
+ * Reports are printed in input order as soon as every earlier file is done, so the output is
+ * the same as a sequential run; only a bounded window of files is in flight at any time.
+ * Archives are read sequentially by {@link ArchiveLexer}, once every earlier file is printed.
+ */
+public class BatchLexer {
+
+    /**
+     * How each file is lexed and printed.
+     * @param recovering Whether to list every lexical error of a file instead of only the first one.
+     * @param cache Where unchanged files are loaded from instead of being lexed again, or {@code null}.
+     *              Recovery runs always lex, since the cache only keeps the first error.
+     * @param charset How text reports are encoded; the charset of the terminal that shows them.
+     * @param symbols A {@link SymbolTable#concurrent()} table shared by every file of the batch, or {@code null}.
+     *                Files are then always lexed whole, since neither cache entries nor parallel chunks carry symbols.
+     */
+    public record Options(boolean recovering, TokenPrinter.Format format, boolean color, TokenCache cache, Charset charset,
+                          SymbolTable symbols) {
+        public static final Options DEFAULT = new Options(false, TokenPrinter.Format.TEXT, true, null);
+
+        /**
+         * Options for reports printed to this process's standard output.
+         */
+        public Options(boolean recovering, TokenPrinter.Format format, boolean color, TokenCache cache) {
+            this(recovering, format, color, cache, System.out.charset(), null);
+        }
+    }
+
+    /**
+     * The numbers of one file that go into the summary.
+     * @param errors Lexical errors found; more than one only when recovering.
+     */
+    record FileReport(int tokens, int errors) {
+
+        boolean failed() {
+            return errors > 0;
+        }
+    }
+
+    /**
+     * A report together with the output rendered for it, kept until every earlier file is printed.
+     */
+    private record Rendered(byte[] output, FileReport report) {
+    }
+
+    /**
+     * Totals of a batch run.
+     * @param files Files reported, counting each lexed archive entry as a file.
+     */
+    public record Summary(int files, long tokens, int errors, long elapsedMillis) {
+    }
+
+    private BatchLexer() {
+    }
+
+    /**
+     * Expands the given paths into the list of files to lex.
+     * Directories are walked recursively for {@code .s} files, in sorted order; other paths are kept as given.
+     */
+    public static List<Path> collect(List<String> arguments) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String argument : arguments) {
+            Path path = Paths.get(argument);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(".s"))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    public static Summary run(List<Path> files, PrintStream out) {
+        return run(files, out, Options.DEFAULT);
+    }
+
+    public static Summary run(List<Path> files, PrintStream out, Options options) {
+        return run(files, out, Runtime.getRuntime().availableProcessors(), options);
+    }
+
+    public static Summary run(List<Path> files, PrintStream out, int parallelism, Options options) {
+        long start = System.nanoTime();
+        int reported = 0;
+        long tokens = 0;
+        int errors = 0;
+        if (files.size() == 1 && !ArchiveLexer.isArchive(files.get(0))) {
+            // A single file is streamed straight to the output instead of being rendered in memory first
+            String path = files.get(0).toString();
+            FileReport report = Main.report(path, path, options, out, TokenPrinter.DEFAULT_BUFFER_SIZE);
+            reported = 1;
+            tokens = report.tokens();
+            errors = report.failed() ? 1 : 0;
+        } else {
+            // Enough files in flight to keep every worker busy without buffering the whole batch
+            int window = parallelism * 4;
+            Deque<CompletableFuture<Rendered>> pending = new ArrayDeque<>();
+            ExecutorService pool = Executors.newWorkStealingPool(parallelism);
+            int next = 0;
+            try {
+                while (next < files.size() || !pending.isEmpty()) {
+                    while (next < files.size() && pending.size() < window && !ArchiveLexer.isArchive(files.get(next))) {
+                        String path = files.get(next++).toString();
+                        pending.addLast(CompletableFuture.supplyAsync(() -> render(path, options), pool));
+                    }
+                    if (pending.isEmpty()) {
+                        // The next file is an archive, streamed straight to the output
+                        Summary archive = ArchiveLexer.run(files.get(next++), out, options);
+                        reported += archive.files();
+                        tokens += archive.tokens();
+                        errors += archive.errors();
+                        continue;
+                    }
+                    Rendered rendered = pending.removeFirst().join();
+                    out.write(rendered.output(), 0, rendered.output().length);
+                    reported++;
+                    tokens += rendered.report().tokens();
+                    if (rendered.report().failed()) {
+                        errors++;
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        Summary summary = new Summary(reported, tokens, errors, elapsed);
+        printSummary(summary, out, options);
+        return summary;
+    }
+
+    static void printSummary(Summary summary, PrintStream out, Options options) {
+        String symbols = options.symbols() != null ? ", " + options.symbols().size() + " símbolos distintos" : "";
+        String line = "RESUMEN: " + summary.files() + " archivos, " + summary.tokens() + " tokens" + symbols
+                + ", " + summary.errors() + " con errores, " + summary.elapsedMillis() + " ms";
+        if (options.format().isMachineReadable()) {
+            // Keep the machine-readable output clean for the tools reading it
+            System.err.println(line);
+        } else {
+            TokenPrinter printer = new TokenPrinter(out, options.format(), options.color(), options.charset(), 1024);
+            try {
+                printer.printSummary(line);
+                printer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static Rendered render(String path, Options options) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FileReport report = Main.report(path, path, options, output, 8192);
+        return new Rendered(output.toByteArray(), report);
+    }
+}
@@ -0,0 +1,250 @@
+package compiler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates valid TinyS programs of any size, modeled on {@code fibonacci.s}: class blocks with
+ * attributes, impl blocks with methods, while and if/else statements, comments, string and double literals.
+ * The output is streamed, so multi-gigabyte files need no more memory than a small buffer, and it
+ * is seeded, so the same mix, seed and size always produce the same bytes.
+ */
+public class CorpusGenerator {
+
+    /**
+     * Relative weights of each kind of statement inside method bodies.
+     */
+    public record Mix(int statements, int comments, int strings, int numbers) {
+
+        public static final Mix DEFAULT = new Mix(6, 2, 1, 1);
+
+        public Mix {
+            if (statements < 0 || comments < 0 || strings < 0 || numbers < 0
+                    || statements + comments + strings + numbers == 0) {
+                throw new IllegalArgumentException("Los pesos deben ser positivos y no todos cero");
+            }
+        }
+
+        /**
+         * Parses a mix such as {@code "statements=4,comments=1,strings=2,numbers=1"}; missing weights are 0.
+         */
+        public static Mix parse(String text) {
+            int statements = 0;
+            int comments = 0;
+            int strings = 0;
+            int numbers = 0;
+            for (String part : text.split(",")) {
+                String[] pair = part.trim().split("=");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Peso inválido: " + part);
+                }
+                int weight = Integer.parseInt(pair[1].trim());
+                switch (pair[0].trim()) {
+                    case "statements" -> statements = weight;
+                    case "comments" -> comments = weight;
+                    case "strings" -> strings = weight;
+                    case "numbers" -> numbers = weight;
+                    default -> throw new IllegalArgumentException("Peso desconocido: " + pair[0]);
+                }
+            }
+            return new Mix(statements, comments, strings, numbers);
+        }
+
+        int total() {
+            return statements + comments + strings + numbers;
+        }
+    }
+
+    private static final String[] WORDS = {
+            "suma", "indice", "valor", "resultado", "contador", "total", "actual", "siguiente",
+            "anterior", "numero", "cadena", "factor", "limite", "paso", "nodo", "dato"
+    };
+
+    private static final String[] CLASS_NAMES = {
+            "Fibonacci", "Lista", "Nodo", "Arbol", "Cadena", "Pila", "Cola", "Mapa", "Sistema", "Calculo"
+    };
+
+    private static final String[] TYPES = {"Int", "Str", "Bool", "Double"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_NESTING = 2;
+
+    private final Mix mix;
+    private final Random random;
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 1024);
+    private OutputStream output;
+    private long written;
+    private int classCount;
+
+    public CorpusGenerator(Mix mix, long seed) {
+        this.mix = mix;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Writes a program of at least {@code size} bytes to {@code file}.
+     * @return The number of bytes written.
+     */
+    public long write(Path file, long size) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            return write(out, size);
+        }
+    }
+
+    /**
+     * Writes a program of at least {@code size} bytes; the stream is flushed but not closed.
+     * @return The number of bytes written.
+     */
+    public long write(OutputStream out, long size) throws IOException {
+        output = out;
+        written = 0;
+        buffer.setLength(0);
+        while (written + buffer.length() < size) {
+            appendClass(size);
+            flushIfFull();
+        }
+        flush();
+        out.flush();
+        return written;
+    }
+
+    private void appendClass(long size) throws IOException {
+        String name = className();
+        buffer.append("class ").append(name).append(" { // ").append(words(3)).append('\n');
+        int attributes = 2 + random.nextInt(4);
+        for (int i = 0; i < attributes; i++) {
+            buffer.append("    pub ").append(TYPES[random.nextInt(TYPES.length)]).append(' ').append(identifier()).append(";\n");
+        }
+        buffer.append("}\nimpl ").append(name).append(" {\n");
+        int methods = 1 + random.nextInt(4);
+        for (int i = 0; i < methods && written + buffer.length() < size; i++) {
+            appendMethod();
+            flushIfFull();
+        }
+        buffer.append("}\n");
+    }
+
+    private void appendMethod() {
+        buffer.append("    fn ").append(TYPES[random.nextInt(TYPES.length)]).append(' ').append(identifier())
+                .append('(').append(TYPES[random.nextInt(TYPES.length)]).append(' ').append(identifier()).append("){\n");
+        int statements = 3 + random.nextInt(8);
+        for (int i = 0; i < statements; i++) {
+            appendStatement(2);
+        }
+        buffer.append("        ret ").append(identifier()).append(";\n    }\n");
+    }
+
+    private void appendStatement(int depth) {
+        int choice = random.nextInt(mix.total());
+        if ((choice -= mix.statements()) < 0) {
+            appendCode(depth);
+        } else if ((choice -= mix.comments()) < 0) {
+            indent(depth);
+            if (random.nextBoolean()) {
+                buffer.append("// ").append(words(4 + random.nextInt(8))).append('\n');
+            } else {
+                buffer.append("/* ").append(words(4 + random.nextInt(8))).append('\n');
+                indent(depth);
+                buffer.append("   ").append(words(4 + random.nextInt(8))).append(" */\n");
+            }
+        } else if ((choice -= mix.strings()) < 0) {
+            indent(depth);
+            buffer.append("(imprimir(\"").append(words(1 + random.nextInt(10))).append("\"));\n");
+        } else {
+            indent(depth);
+            buffer.append(identifier()).append(" = ").append(random.nextInt(10_000)).append('.')
+                    .append(random.nextInt(1000)).append(" * ").append(random.nextInt(100)).append(";\n");
+        }
+    }
+
+    private void appendCode(int depth) {
+        int nesting = depth - 2;
+        int choice = random.nextInt(nesting < MAX_NESTING ? 6 : 3);
+        indent(depth);
+        switch (choice) {
+            case 0 -> buffer.append(identifier()).append('=').append(identifier()).append('+').append(identifier()).append(";\n");
+            case 1 -> buffer.append("(imprimo_numero(").append(identifier()).append("));\n");
+            case 2 -> buffer.append("(++").append(identifier()).append(");\n");
+            case 3, 4 -> {
+                buffer.append("while (").append(identifier()).append(" <= ").append(identifier()).append("){\n");
+                appendBlock(depth + 1);
+                indent(depth);
+                buffer.append("}\n");
+            }
+            default -> {
+                buffer.append("if (").append(identifier()).append(" == ").append(random.nextInt(10)).append("){\n");
+                appendBlock(depth + 1);
+                indent(depth);
+                buffer.append("} else {\n");
+                appendBlock(depth + 1);
+                indent(depth);
+                buffer.append("}\n");
+            }
+        }
+    }
+
+    private void appendBlock(int depth) {
+        int statements = 1 + random.nextInt(3);
+        for (int i = 0; i < statements; i++) {
+            appendStatement(depth);
+        }
+    }
+
+    private void indent(int depth) {
+        for (int i = 0; i < depth; i++) {
+            buffer.append("    ");
+        }
+    }
+
+    private String identifier() {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return switch (random.nextInt(3)) {
+            case 0 -> word;
+            case 1 -> word + "_" + WORDS[random.nextInt(WORDS.length)];
+            default -> word + random.nextInt(100);
+        };
+    }
+
+    /**
+     * Class names can only contain letters, so the count is spelled with letters as a suffix.
+     */
+    private String className() {
+        StringBuilder name = new StringBuilder(CLASS_NAMES[random.nextInt(CLASS_NAMES.length)]);
+        int count = classCount++;
+        do {
+            name.append((char) ('a' + count % 26));
+            count /= 26;
+        } while (count > 0);
+        return name.toString();
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private void flushIfFull() throws IOException {
+        if (buffer.length() >= BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        // Everything generated is ASCII, so characters and bytes match one to one
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.US_ASCII);
+        output.write(bytes);
+        written += bytes.length;
+        buffer.setLength(0);
+    }
+}
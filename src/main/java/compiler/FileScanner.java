@@ -1,33 +1,222 @@
 package compiler;
 
-import java.io.*;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
+/**
+ * Byte-oriented view of a source file.
+ * Large files are memory-mapped through a {@link FileChannel}; small ones are copied into a heap
+ * {@link ByteBuffer}, since mapping them costs more than reading them.
+ * Characters are decoded from UTF-8 on the fly, so the lexer sees the same values a
+ * UTF-8 {@code Reader} would hand it, without the per-character charset and virtual call overhead.
+ */
 public class FileScanner {
-    private final Reader reader;
+    /**
+     * Files at or above this size are memory-mapped instead of read into the heap.
+     */
+    public static final int MAPPING_THRESHOLD = 64 * 1024;
+
+    /**
+     * Largest file that can be scanned: the whole file is a single buffer with {@code int} positions.
+     */
+    public static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Value returned for malformed UTF-8 sequences, same as a decoding {@code Reader}.
+     */
+    private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private ByteBuffer buffer;
+    private int size;
+    private boolean mapped;
+    private int position;
 
-    public FileScanner(String filePath) throws FileNotFoundException {
-        this.reader = new BufferedReader(new FileReader(filePath));
+    public FileScanner(String filePath) throws IOException {
+        try (FileInputStream input = new FileInputStream(filePath);
+             FileChannel channel = input.getChannel()) {
+            long fileSize = channel.size();
+            if (fileSize > MAX_SIZE) {
+                throw new IOException("El archivo excede el tamaño máximo soportado: " + filePath);
+            }
+            this.size = (int) fileSize;
+            this.mapped = size >= MAPPING_THRESHOLD;
+            if (mapped) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                ByteBuffer heap = ByteBuffer.allocate(size);
+                while (heap.hasRemaining() && channel.read(heap) != -1) {
+                    // Keep reading until the whole file is in memory.
+                }
+                heap.flip();
+                this.buffer = heap;
+            }
+        }
+        this.position = 0;
     }
 
+    /**
+     * Creates a scanner over content that is already in memory, such as an edited buffer.
+     */
+    public FileScanner(byte[] content) {
+        this(ByteBuffer.wrap(content), content.length, false);
+    }
 
-    public int readCharacter() throws IOException {
-        return reader.read();
+    private FileScanner(ByteBuffer buffer, int size, boolean mapped) {
+        this.buffer = buffer;
+        this.size = size;
+        this.mapped = mapped;
+        this.position = 0;
     }
 
-    public void close() throws IOException {
-        reader.close();
+    /**
+     * Points this scanner at other content, from its index 0 up to its limit, and rewinds it.
+     * Lets a lexer be reused across sources without creating a new scanner for each one.
+     */
+    public void reset(ByteBuffer content) {
+        this.buffer = content;
+        this.size = content.limit();
+        this.mapped = false;
+        this.position = 0;
     }
 
     /**
-     * Reads a line from the file.
-     * @return The line read from the file, or null if the end of the file is reached.
-     * @throws IOException If an I/O error occurs.
+     * Creates a scanner over the same content with its own position, so several readers
+     * can work on one file concurrently without copying it.
      */
-    public boolean isEmpty() throws IOException {
-        reader.mark(1);
-        int firstChar = reader.read();
-        reader.reset();
+    public FileScanner duplicate() {
+        return new FileScanner(buffer, size, mapped);
+    }
+
+    /**
+     * Reads the next character, decoding UTF-8 sequences.
+     * Characters outside the BMP are returned as their high surrogate, as a {@code Reader} would.
+     * @return The character read, or -1 if the end of the file is reached.
+     */
+    public int readCharacter() {
+        if (position >= size) {
+            return -1;
+        }
+        int lead = buffer.get(position++) & 0xFF;
+        if (lead < 0x80) {
+            return lead;
+        }
+        return decodeMultiByte(lead);
+    }
+
+    private int decodeMultiByte(int lead) {
+        int extraBytes;
+        int codePoint;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            extraBytes = 1;
+            codePoint = lead & 0x1F;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            extraBytes = 2;
+            codePoint = lead & 0x0F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            extraBytes = 3;
+            codePoint = lead & 0x07;
+        } else {
+            return REPLACEMENT_CHARACTER;
+        }
+        for (int i = 0; i < extraBytes; i++) {
+            if (position >= size) {
+                return REPLACEMENT_CHARACTER;
+            }
+            int next = buffer.get(position) & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                return REPLACEMENT_CHARACTER;
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+            position++;
+        }
+        if ((extraBytes == 2 && codePoint < 0x800) || (extraBytes == 3 && codePoint < 0x10000)) {
+            // Overlong encoding.
+            return REPLACEMENT_CHARACTER;
+        }
+        return codePoint > 0xFFFF ? Character.highSurrogate(codePoint) : codePoint;
+    }
 
-        return (firstChar == -1);
+    /**
+     * Counts the characters {@link #readCharacter()} returns while reading {@code buffer} from
+     * {@code from} until reaching {@code to}, so malformed sequences count the way they are decoded.
+     */
+    public static int countCharacters(ByteBuffer buffer, int from, int to) {
+        FileScanner scanner = new FileScanner(buffer, buffer.limit(), false);
+        scanner.position = from;
+        int characters = 0;
+        while (scanner.position < to) {
+            scanner.readCharacter();
+            characters++;
+        }
+        return characters;
+    }
+
+    /**
+     * Copies up to {@code length} raw bytes starting at the current position.
+     * @return The number of bytes copied, or -1 if the end of the file is reached.
+     */
+    public int read(byte[] destination, int offset, int length) {
+        if (position >= size) {
+            return -1;
+        }
+        int count = Math.min(length, size - position);
+        buffer.get(position, destination, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Returns the raw byte at the given offset as an unsigned value.
+     */
+    public int byteAt(int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    /**
+     * Returns a view over the whole file, for bulk access, with its own position and limit.
+     * A small file's view keeps its backing array, so callers can use {@link ByteBuffer#array()}
+     * instead of copying; the content is shared with this scanner and must not be modified.
+     */
+    public ByteBuffer buffer() {
+        return buffer.duplicate();
+    }
+
+    /**
+     * Offset of the next byte to be read.
+     */
+    public int position() {
+        return position;
+    }
+
+    public void position(int newPosition) {
+        if (newPosition < 0 || newPosition > size) {
+            throw new IndexOutOfBoundsException(newPosition);
+        }
+        this.position = newPosition;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * The channel is closed as soon as the file is loaded; a mapping stays valid until it is
+     * garbage collected, so there is nothing left to release here.
+     */
+    public void close() {
+    }
+
+    /**
+     * Checks whether the file has no content.
+     * @return true if the file is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
     }
 }
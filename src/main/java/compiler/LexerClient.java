@@ -0,0 +1,149 @@
+package compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thin client of {@link LexerDaemon}: sends each file to the daemon and copies its reports to the
+ * standard output. It never loads the lexer itself, so it starts about as fast as the JVM does.
+ * <p>
+ * Usage: {@code LexerClient <socket> [--recover] [--no-color] [--format=text|jsonl|tsv|binary] <paths...>}.
+ * Directories are walked for {@code .s} files and {@code -} sends the source code read from the
+ * standard input. The reports are followed by the same summary a local batch run prints, and the
+ * exit status is 1 if any file has errors.
+ */
+public class LexerClient {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String STANDARD_INPUT = "-";
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final BatchLexer.Options options;
+    private long tokens;
+
+    private LexerClient(SocketChannel channel, BatchLexer.Options options) {
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        this.options = options;
+    }
+
+    private static void usage() {
+        System.err.println("Uso: LexerClient <socket> [--recover] [--no-color] [--format=" + TokenPrinter.Format.choices() + "] <archivos...>");
+        System.exit(2);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            usage();
+        }
+        TokenPrinter.Format format = TokenPrinter.Format.TEXT;
+        boolean color = true;
+        boolean recovering = false;
+        List<String> paths = new ArrayList<>();
+        for (String arg : Arrays.asList(args).subList(1, args.length)) {
+            if (arg.equals("--recover")) {
+                recovering = true;
+            } else if (arg.equals("--no-color")) {
+                color = false;
+            } else if (arg.startsWith("--format=")) {
+                try {
+                    format = TokenPrinter.Format.parse(arg.substring("--format=".length()));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    usage();
+                }
+            } else {
+                paths.add(arg);
+            }
+        }
+
+        BatchLexer.Options options = new BatchLexer.Options(recovering, format, color, null);
+
+        long start = System.nanoTime();
+        int files = 0;
+        int errors = 0;
+        long tokens;
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(args[0]));
+            LexerClient client = new LexerClient(channel, options);
+            for (String path : paths) {
+                if (path.equals(STANDARD_INPUT)) {
+                    files++;
+                    errors += client.lexSource("stdin", System.in.readAllBytes(), System.out) ? 1 : 0;
+                } else {
+                    for (Path file : BatchLexer.collect(List.of(path))) {
+                        files++;
+                        errors += client.lexFile(file, System.out) ? 1 : 0;
+                    }
+                }
+            }
+            tokens = client.tokens;
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        BatchLexer.printSummary(new BatchLexer.Summary(files, tokens, errors, elapsed), System.out, options);
+        System.out.flush();
+        System.exit(errors > 0 ? 1 : 0);
+    }
+
+    /**
+     * Asks the daemon to lex a file, which it reads itself, and copies the report to {@code report}.
+     * @return Whether the file has errors.
+     */
+    boolean lexFile(Path file, OutputStream report) throws IOException {
+        writeRequest(LexerDaemon.PATH, file.toString());
+        out.writeUTF(file.toAbsolutePath().toString());
+        return readResponse(report);
+    }
+
+    /**
+     * Sends source code to the daemon and copies the report to {@code report}.
+     * @return Whether the source code has errors.
+     */
+    boolean lexSource(String name, byte[] content, OutputStream report) throws IOException {
+        writeRequest(LexerDaemon.SOURCE, name);
+        out.writeInt(content.length);
+        out.write(content);
+        return readResponse(report);
+    }
+
+    private void writeRequest(byte kind, String name) throws IOException {
+        out.writeByte(kind);
+        out.writeUTF(options.format().name());
+        out.writeBoolean(options.color());
+        out.writeBoolean(options.recovering());
+        // Reports are copied to the terminal as they come, so the daemon encodes them for it
+        out.writeUTF(options.charset().name());
+        out.writeUTF(name);
+    }
+
+    private boolean readResponse(OutputStream report) throws IOException {
+        out.flush();
+        byte[] chunk = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = in.readInt()) > 0) {
+            while (length > 0) {
+                int read = in.read(chunk, 0, Math.min(length, chunk.length));
+                if (read == -1) {
+                    throw new IOException("El servidor cerró la conexión");
+                }
+                report.write(chunk, 0, read);
+                length -= read;
+            }
+        }
+        tokens += in.readInt();
+        return in.readBoolean();
+    }
+}
@@ -0,0 +1,182 @@
+package compiler;
+
+import compiler.LexicalAnalyzer.LexicalAnalyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a warmed-up lexer resident and serves lex requests over a Unix domain socket, so editors and
+ * build scripts that lex one file at a time do not pay JVM startup and JIT warm-up on every call.
+ * Each connection is served on its own virtual thread and may carry any number of requests.
+ * <p>
+ * Every request starts with a kind byte, the format name, the color and recovery flags, the name of the
+ * charset text reports are encoded in (the client's, not the daemon's) and the name shown in the report,
+ * all written with {@link DataOutputStream}:
+ * <ul>
+ *     <li>{@link #PATH}: followed by the path of the file, which the daemon reads itself.</li>
+ *     <li>{@link #SOURCE}: followed by the length and bytes of the source code.</li>
+ * </ul>
+ * The response is the same report {@code Main} prints for the file, sent as chunks prefixed by their
+ * length and ended by an empty chunk, followed by the token count and whether the file failed.
+ */
+public class LexerDaemon {
+
+    static final byte PATH = 'P';
+    static final byte SOURCE = 'S';
+
+    /**
+     * Inline sources above this size are rejected; larger files should be sent by path.
+     */
+    static final int MAX_SOURCE_SIZE = 64 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path socket;
+    private final PrintStream log;
+
+    public LexerDaemon(Path socket, PrintStream log) {
+        this.socket = socket;
+        this.log = log;
+    }
+
+    /**
+     * Listens on the socket until the process is stopped. A socket file left behind by an earlier
+     * daemon is replaced.
+     */
+    public void serve() throws IOException {
+        warmUp();
+        Files.deleteIfExists(socket);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+             ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException e) {
+                    // The process is exiting anyway
+                }
+            }));
+            log.println("Escuchando en " + socket);
+            while (true) {
+                SocketChannel client = server.accept();
+                connections.submit(() -> handle(client));
+            }
+        }
+    }
+
+    /**
+     * Lexes a generated program a few times so the first requests already run compiled code.
+     */
+    private static void warmUp() throws IOException {
+        ByteArrayOutputStream program = new ByteArrayOutputStream();
+        new CorpusGenerator(CorpusGenerator.Mix.DEFAULT, 1).write(program, 1024 * 1024);
+        byte[] content = program.toByteArray();
+        LexicalAnalyzer lexer = new LexicalAnalyzer(LexicalAnalyzer.Engine.CLASSIC);
+        for (int i = 0; i < 10; i++) {
+            lexer.reset(content).tokenize();
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client), BUFFER_SIZE));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client), BUFFER_SIZE))) {
+            while (true) {
+                int kind = in.read();
+                if (kind == -1) {
+                    // The client has sent all its requests
+                    return;
+                }
+                TokenPrinter.Format format = TokenPrinter.Format.parse(in.readUTF());
+                boolean color = in.readBoolean();
+                boolean recovering = in.readBoolean();
+                BatchLexer.Options options = new BatchLexer.Options(recovering, format, color, null, charset(in.readUTF()), null);
+                String name = in.readUTF();
+                ChunkedOutputStream report = new ChunkedOutputStream(out);
+                BatchLexer.FileReport result = switch (kind) {
+                    case PATH -> Main.report(in.readUTF(), name, options, report, BUFFER_SIZE);
+                    case SOURCE -> Main.report(name, readSource(in), options, report, BUFFER_SIZE);
+                    default -> throw new IOException("Tipo de pedido desconocido: " + kind);
+                };
+                out.writeInt(0);
+                out.writeInt(result.tokens());
+                out.writeBoolean(result.failed());
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // The client closed the connection in the middle of a request
+        } catch (IOException | RuntimeException e) {
+            log.println("Error atendiendo un pedido: " + e);
+        }
+    }
+
+    /**
+     * The charset the client asked for, or UTF-8 if this JVM does not support it.
+     */
+    private static Charset charset(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static byte[] readSource(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_SOURCE_SIZE) {
+            throw new IOException("Tamaño de código fuente inválido: " + length);
+        }
+        byte[] content = new byte[length];
+        in.readFully(content);
+        return content;
+    }
+
+    /**
+     * Sends everything written to it as chunks prefixed by their length.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+        private final DataOutputStream out;
+
+        ChunkedOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.writeInt(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package compiler.LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Búsquedas de bytes de a ocho por vez (SWAR: cada {@code long} se trata como ocho bytes) para
+ * saltear de un tirón los comentarios, el contenido de los strings y los espacios.
+ * Cada búsqueda devuelve la posición del primer byte que el analizador tiene que mirar uno por uno:
+ * los delimitadores del contexto y todo byte que no sea ASCII, para que la decodificación y el
+ * control de caracteres fuera de ASCII sigan haciéndose carácter por carácter.
+ */
+final class ByteScanner {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final long NEWLINES = '\n' * ONES;
+    private static final long STARS = '*' * ONES;
+    private static final long QUOTES = '"' * ONES;
+    private static final long SPACES = ' ' * ONES;
+
+    private ByteScanner() {
+    }
+
+    /**
+     * Primer salto de línea o byte no ASCII desde {@code from}, o {@code limit} si no hay.
+     */
+    static int skipLineComment(ByteBuffer source, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = source.getLong(i);
+            long found = zeroBytes(word ^ NEWLINES) | (word & HIGH_BITS);
+            if (found != 0) {
+                return i + firstByte(source, found);
+            }
+        }
+        for (; i < limit; i++) {
+            int b = source.get(i);
+            if (b == '\n' || b < 0) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Primer asterisco, salto de línea o byte no ASCII desde {@code from}, o {@code limit} si no hay.
+     */
+    static int skipBlockComment(ByteBuffer source, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = source.getLong(i);
+            long found = zeroBytes(word ^ STARS) | zeroBytes(word ^ NEWLINES) | (word & HIGH_BITS);
+            if (found != 0) {
+                return i + firstByte(source, found);
+            }
+        }
+        for (; i < limit; i++) {
+            int b = source.get(i);
+            if (b == '*' || b == '\n' || b < 0) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Primera comilla, salto de línea, NUL o byte no ASCII desde {@code from}, o {@code limit} si no hay.
+     */
+    static int skipStringBody(ByteBuffer source, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = source.getLong(i);
+            long found = zeroBytes(word ^ QUOTES) | zeroBytes(word ^ NEWLINES) | zeroBytes(word) | (word & HIGH_BITS);
+            if (found != 0) {
+                return i + firstByte(source, found);
+            }
+        }
+        for (; i < limit; i++) {
+            int b = source.get(i);
+            if (b == '"' || b == '\n' || b == 0 || b < 0) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Primer byte distinto de un espacio desde {@code from}, o {@code limit} si no hay.
+     */
+    static int skipSpaces(ByteBuffer source, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long found = nonZeroBytes(source.getLong(i) ^ SPACES);
+            if (found != 0) {
+                return i + firstByte(source, found);
+            }
+        }
+        while (i < limit && source.get(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Primer salto de línea desde {@code from}, o {@code limit} si no hay. A diferencia de las otras
+     * búsquedas no se detiene en los bytes no ASCII: sirve para indexar líneas, no para analizar.
+     */
+    static int nextNewline(ByteBuffer source, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long found = zeroBytes(source.getLong(i) ^ NEWLINES);
+            if (found != 0) {
+                return i + firstByte(source, found);
+            }
+        }
+        while (i < limit && source.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Primer byte no ASCII desde {@code from}, o {@code limit} si no hay.
+     */
+    static int nextNonAscii(ByteBuffer source, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long found = source.getLong(i) & HIGH_BITS;
+            if (found != 0) {
+                return i + firstByte(source, found);
+            }
+        }
+        while (i < limit && source.get(i) >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Marca con el bit alto cada byte en cero. Es exacto: la suma no acarrea entre bytes, así que
+     * un byte en cero no marca a sus vecinos.
+     */
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    private static long nonZeroBytes(long word) {
+        return (((word & LOW_BITS) + LOW_BITS) | word) & HIGH_BITS;
+    }
+
+    /**
+     * Índice dentro de la palabra del primer byte marcado, según el orden de bytes del buffer.
+     */
+    private static int firstByte(ByteBuffer source, long marks) {
+        return (source.order() == ByteOrder.BIG_ENDIAN
+                ? Long.numberOfLeadingZeros(marks)
+                : Long.numberOfTrailingZeros(marks)) >>> 3;
+    }
+}
@@ -0,0 +1,188 @@
+package compiler.LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Tabla de símbolos compartida entre varios hilos, creada con {@link SymbolTable#concurrent()}.
+ * <p>
+ * Casi todas las apariciones de un identificador son de uno que ya está en la tabla, así que la búsqueda
+ * no toma ningún lock: cada símbolo es un objeto inmutable que se publica en la tabla hash con una
+ * escritura de liberación y se lee con una de adquisición. Solo agregar un símbolo nuevo toma el lock de
+ * una de las {@link #STRIPES} partes en que se divide la tabla hash según el hash del texto, así que los
+ * hilos que agregan símbolos distintos casi nunca se esperan. Los números se reparten con un contador
+ * atómico y el texto de cada número se guarda en páginas que no se mueven al crecer.
+ */
+final class ConcurrentSymbolTable extends SymbolTable {
+
+    private static final int STRIPE_BITS = 5;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final AtomicReferenceFieldUpdater<Entry, String> NAME =
+            AtomicReferenceFieldUpdater.newUpdater(Entry.class, String.class, "name");
+
+    /**
+     * Un símbolo; todo salvo su String, que se crea a pedido, es inmutable.
+     */
+    private static final class Entry {
+        final byte[] text;
+        final int hash;
+        final int symbol;
+        volatile String name;
+
+        Entry(byte[] text, int hash, int symbol) {
+            this.text = text;
+            this.hash = hash;
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * Una parte de la tabla hash, de direccionamiento abierto. Se lee sin lock; se modifica con su lock.
+     */
+    private static final class Stripe {
+        volatile AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(16);
+        int count;
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    /** Símbolos por número, en páginas de {@link #PAGE_SIZE}; solo se agregan páginas, con el lock de la tabla. */
+    private volatile Entry[][] pages = new Entry[16][];
+
+    ConcurrentSymbolTable() {
+        super(0);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public int intern(ByteBuffer source, int offset, int length) {
+        int hash = hash(source, offset, length);
+        Stripe stripe = stripes[hash & (STRIPES - 1)];
+        Entry entry = find(stripe.slots, hash, source, offset, length);
+        if (entry != null) {
+            return entry.symbol;
+        }
+        synchronized (stripe) {
+            // Otro hilo pudo haberlo agregado o haber agrandado la parte mientras se buscaba
+            AtomicReferenceArray<Entry> slots = stripe.slots;
+            int mask = slots.length() - 1;
+            int slot = (hash >>> STRIPE_BITS) & mask;
+            while ((entry = slots.get(slot)) != null) {
+                if (entry.hash == hash && sameText(entry, source, offset, length)) {
+                    return entry.symbol;
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] text = new byte[length];
+            source.get(offset, text);
+            entry = new Entry(text, hash, size.getAndIncrement());
+            // El número se puede leer en cuanto el símbolo aparece en la tabla hash
+            page(entry.symbol)[entry.symbol & (PAGE_SIZE - 1)] = entry;
+            slots.setRelease(slot, entry);
+            // Se mantiene cada parte a lo sumo a la mitad de su capacidad
+            if (++stripe.count * 2 > slots.length()) {
+                stripe.slots = rehash(slots);
+            }
+            return entry.symbol;
+        }
+    }
+
+    private static Entry find(AtomicReferenceArray<Entry> slots, int hash, ByteBuffer source, int offset, int length) {
+        int mask = slots.length() - 1;
+        int slot = (hash >>> STRIPE_BITS) & mask;
+        Entry entry;
+        while ((entry = slots.getAcquire(slot)) != null) {
+            if (entry.hash == hash && sameText(entry, source, offset, length)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static AtomicReferenceArray<Entry> rehash(AtomicReferenceArray<Entry> slots) {
+        AtomicReferenceArray<Entry> larger = new AtomicReferenceArray<>(slots.length() * 2);
+        int mask = larger.length() - 1;
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (entry != null) {
+                int slot = (entry.hash >>> STRIPE_BITS) & mask;
+                while (larger.get(slot) != null) {
+                    slot = (slot + 1) & mask;
+                }
+                larger.set(slot, entry);
+            }
+        }
+        return larger;
+    }
+
+    private static boolean sameText(Entry entry, ByteBuffer source, int offset, int length) {
+        byte[] text = entry.text;
+        if (text.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text[i] != source.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Página donde va el símbolo, creándola si hace falta.
+     */
+    private Entry[] page(int symbol) {
+        int index = symbol >>> PAGE_BITS;
+        Entry[][] current = pages;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = pages;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new Entry[PAGE_SIZE];
+            }
+            pages = current;
+            return current[index];
+        }
+    }
+
+    @Override
+    public String name(int symbol) {
+        Entry[][] current = pages;
+        Entry entry = symbol >= 0 && symbol >>> PAGE_BITS < current.length && current[symbol >>> PAGE_BITS] != null
+                ? current[symbol >>> PAGE_BITS][symbol & (PAGE_SIZE - 1)] : null;
+        if (entry == null) {
+            throw new IndexOutOfBoundsException("Símbolo inexistente: " + symbol);
+        }
+        String name = entry.name;
+        if (name == null) {
+            // Si dos hilos lo crean a la vez, ambos devuelven el que se guardó primero
+            NAME.compareAndSet(entry, null, new String(entry.text, StandardCharsets.UTF_8));
+            name = entry.name;
+        }
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+}
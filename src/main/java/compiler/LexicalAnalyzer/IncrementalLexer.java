@@ -0,0 +1,177 @@
+package compiler.LexicalAnalyzer;
+
+import compiler.FileScanner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Código fuente editable cuyos tokens se corrigen después de cada {@link TextEdit} en lugar de volver
+ * a analizar el archivo completo.
+ * <p>
+ * Se retoma el análisis desde el último token que termina antes del cambio (su lookahead no fue
+ * tocado) y se analiza hasta que un token nuevo termina en la misma posición, ya desplazada, que un
+ * token anterior después del cambio. Desde ahí el texto y el estado del analizador coinciden, así
+ * que el resto de los tokens se conserva moviendo sus posiciones.
+ * <p>
+ * El texto, los tokens y el índice de líneas se corrigen en el lugar: el texto vive en un arreglo con
+ * capacidad de sobra, los tokens reanalizados reemplazan a los viejos dentro del mismo {@link TokenBuffer}
+ * y en el índice de líneas solo se buscan saltos de línea en el texto insertado. El análisis y esa búsqueda
+ * dependen del tamaño del cambio; lo que sigue al cambio (bytes, tokens y comienzos de línea) se mueve
+ * con una copia de memoria y un desplazamiento de posiciones, sin crear arreglos ni volver a recorrerlo.
+ * El analizador necesita el código contiguo, por eso no se usa un gap buffer ni una piece table.
+ */
+public final class IncrementalLexer {
+
+    private final LexicalAnalyzer.Engine engine;
+    private final FileScanner fileScanner = new FileScanner(new byte[0]);
+    private byte[] content;
+    private int size;
+    private ByteBuffer source;
+    private LineIndex lines;
+    private final TokenBuffer tokens;
+    /** Tokens reanalizados en cada cambio, reutilizado entre cambios. */
+    private final TokenBuffer relexed;
+    /** Indica que el último cambio dejó un error léxico, así que los tokens no corresponden al texto. */
+    private boolean stale;
+
+    public IncrementalLexer(byte[] initialContent) {
+        this(initialContent, LexicalAnalyzer.Engine.CLASSIC);
+    }
+
+    /**
+     * Copia el código inicial y lo analiza completo.
+     * @throws LexicalException Si el código está vacío o tiene un error léxico.
+     */
+    public IncrementalLexer(byte[] initialContent, LexicalAnalyzer.Engine engine) {
+        checkNotEmpty(initialContent.length);
+        this.engine = engine;
+        this.content = Arrays.copyOf(initialContent, capacityFor(initialContent.length));
+        this.size = initialContent.length;
+        useContent();
+        this.tokens = new TokenBuffer(source, TokenBuffer.estimateCapacity(size));
+        this.relexed = new TokenBuffer(source);
+        relexAll();
+    }
+
+    /**
+     * Tokens del código actual, hasta el EOF. Es siempre el mismo buffer, que se corrige con cada cambio.
+     */
+    public TokenBuffer tokens() {
+        if (stale) {
+            throw new IllegalStateException("El último cambio dejó un error léxico");
+        }
+        return tokens;
+    }
+
+    /**
+     * Tamaño del código actual en bytes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Aplica el cambio al código y corrige los tokens.
+     * @return Los tokens del código modificado, como {@link #tokens()}.
+     * @throws LexicalException Si el código modificado tiene un error léxico. El cambio queda aplicado
+     *                          y el próximo se analiza sobre el archivo completo.
+     */
+    public TokenBuffer apply(TextEdit edit) {
+        Objects.checkFromIndexSize(edit.offset(), edit.removedLength(), size);
+        byte[] inserted = edit.insertedText().getBytes(StandardCharsets.UTF_8);
+        int editStart = edit.offset();
+        int oldEditEnd = editStart + edit.removedLength();
+        int newEditEnd = editStart + inserted.length;
+        int delta = inserted.length - edit.removedLength();
+        checkNotEmpty(size + delta);
+
+        if (size + delta > content.length) {
+            content = Arrays.copyOf(content, capacityFor(size + delta));
+        }
+        System.arraycopy(content, oldEditEnd, content, newEditEnd, size - oldEditEnd);
+        System.arraycopy(inserted, 0, content, editStart, inserted.length);
+        size += delta;
+        useContent();
+        tokens.useSource(source);
+        if (stale) {
+            relexAll();
+            return tokens;
+        }
+        lines.applyEdit(source, editStart, oldEditEnd, newEditEnd);
+
+        // El último token que termina antes del cambio no depende de él
+        int restart = firstEndingAtOrAfter(tokens, editStart) - 1;
+        int first = Math.max(restart, 0);
+        relexed.clear();
+        relexed.useSource(source);
+        LexicalAnalyzer lexer = new LexicalAnalyzer(fileScanner, engine, restart >= 0 ? tokens.start(restart) : 0, lines);
+        int candidate = first;
+        try {
+            while (lexer.scanInto(relexed) != TokenKind.EOF) {
+                int end = lexer.position();
+                if (end < newEditEnd) {
+                    continue;
+                }
+                // Los tokens viejos todavía tienen las posiciones de antes del cambio
+                int oldEnd = end - delta;
+                while (candidate < tokens.size() && tokens.end(candidate) < oldEnd) {
+                    candidate++;
+                }
+                if (tokens.kind(candidate) != TokenKind.EOF && tokens.end(candidate) == oldEnd) {
+                    tokens.splice(first, candidate + 1, relexed, delta);
+                    return tokens;
+                }
+            }
+        } catch (LexicalException e) {
+            stale = true;
+            throw e;
+        }
+        tokens.splice(first, tokens.size(), relexed, delta);
+        return tokens;
+    }
+
+    private void relexAll() {
+        stale = true;
+        tokens.clear();
+        lines = LineIndex.build(source, size);
+        tokens.useLines(lines);
+        new LexicalAnalyzer(fileScanner, engine, 0, lines).drainTo(tokens);
+        stale = false;
+    }
+
+    private void useContent() {
+        fileScanner.reset(ByteBuffer.wrap(content, 0, size));
+        source = fileScanner.buffer();
+    }
+
+    private static int capacityFor(int size) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(64, size + (long) (size >> 1)));
+    }
+
+    private static void checkNotEmpty(int size) {
+        if (size == 0) {
+            throw new LexicalException("El archivo 'tinyS' está vacío", "", 0, 0);
+        }
+    }
+
+    /**
+     * Índice del primer token que termina en {@code offset} o después. Como el carácter siguiente a un
+     * token decide dónde termina, un token que termina justo donde empieza el cambio también se ve afectado.
+     */
+    private static int firstEndingAtOrAfter(TokenBuffer tokens, int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.end(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,107 @@
+package compiler.LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reconocimiento de palabras clave directamente sobre los bytes del código fuente, sin crear Strings.
+ * <p>
+ * Usa un hash perfecto de las palabras clave según su primer byte, su último byte y su longitud.
+ * Los multiplicadores se buscan al cargar la clase, de modo que agregar una palabra clave a
+ * {@link TokenKind} no requiere recalcular nada a mano. Cada posición de la tabla tiene a lo sumo
+ * una palabra clave, así que alcanza con comparar sus bytes con los del identificador.
+ */
+final class KeywordTable {
+
+    private static final int SLOT_BITS = 5;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    private static final int MIN_LENGTH;
+    private static final int MAX_LENGTH;
+    private static final int FIRST_MULTIPLIER;
+    private static final int LAST_MULTIPLIER;
+    private static final byte[][] KEYWORD_BYTES = new byte[1 << SLOT_BITS][];
+    private static final TokenKind[] KEYWORD_KINDS = new TokenKind[1 << SLOT_BITS];
+
+    static {
+        int keywordCount = 0;
+        int minLength = Integer.MAX_VALUE;
+        int maxLength = 0;
+        for (TokenKind kind : TokenKind.values()) {
+            if (kind.isKeyword()) {
+                keywordCount++;
+                minLength = Math.min(minLength, kind.getFixedLexeme().length());
+                maxLength = Math.max(maxLength, kind.getFixedLexeme().length());
+            }
+        }
+        byte[][] keywords = new byte[keywordCount][];
+        TokenKind[] kinds = new TokenKind[keywordCount];
+        int index = 0;
+        for (TokenKind kind : TokenKind.values()) {
+            if (kind.isKeyword()) {
+                keywords[index] = kind.getFixedLexeme().getBytes(StandardCharsets.US_ASCII);
+                kinds[index++] = kind;
+            }
+        }
+        MIN_LENGTH = minLength;
+        MAX_LENGTH = maxLength;
+
+        int[] multipliers = findMultipliers(keywords);
+        FIRST_MULTIPLIER = multipliers[0];
+        LAST_MULTIPLIER = multipliers[1];
+        for (int i = 0; i < keywordCount; i++) {
+            int slot = slot(keywords[i][0], keywords[i][keywords[i].length - 1], keywords[i].length);
+            KEYWORD_BYTES[slot] = keywords[i];
+            KEYWORD_KINDS[slot] = kinds[i];
+        }
+    }
+
+    private KeywordTable() {
+    }
+
+    private static int[] findMultipliers(byte[][] keywords) {
+        for (int first = 1; first < 64; first++) {
+            for (int last = 1; last < 64; last++) {
+                int used = 0;
+                boolean perfect = true;
+                for (byte[] keyword : keywords) {
+                    int slot = (keyword[0] * first + keyword[keyword.length - 1] * last + keyword.length) & SLOT_MASK;
+                    if ((used & (1 << slot)) != 0) {
+                        perfect = false;
+                        break;
+                    }
+                    used |= 1 << slot;
+                }
+                if (perfect) {
+                    return new int[]{first, last};
+                }
+            }
+        }
+        throw new IllegalStateException("No se encontró un hash perfecto para las palabras clave");
+    }
+
+    private static int slot(int first, int last, int length) {
+        return (first * FIRST_MULTIPLIER + last * LAST_MULTIPLIER + length) & SLOT_MASK;
+    }
+
+    /**
+     * Devuelve la palabra clave cuyo texto es igual a los {@code length} bytes desde {@code offset},
+     * o {@code null} si el identificador no es una palabra clave.
+     */
+    static TokenKind lookup(ByteBuffer source, int offset, int length) {
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return null;
+        }
+        int slot = slot(source.get(offset), source.get(offset + length - 1), length);
+        byte[] keyword = KEYWORD_BYTES[slot];
+        if (keyword == null || keyword.length != length) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.get(offset + i) != keyword[i]) {
+                return null;
+            }
+        }
+        return KEYWORD_KINDS[slot];
+    }
+}
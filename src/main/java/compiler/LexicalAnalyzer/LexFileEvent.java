@@ -0,0 +1,32 @@
+package compiler.LexicalAnalyzer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento de JDK Flight Recorder por archivo analizado, con su duración, tamaño, tokens y errores.
+ * Se crea con {@link #begin()} antes de analizar y se confirma con {@link #commit()} al terminar.
+ */
+@Name("compiler.LexFile")
+@Label("Análisis de archivo")
+@Category({"TinyS", "Análisis léxico"})
+@Description("Análisis léxico de un archivo fuente")
+public class LexFileEvent extends Event {
+
+    @Label("Archivo")
+    public String file;
+
+    @Label("Tamaño")
+    @DataAmount
+    public long bytes;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Errores")
+    public int errors;
+}
@@ -0,0 +1,88 @@
+package compiler.LexicalAnalyzer;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores globales del análisis léxico: tokens por tipo, bytes de comentarios y de espacios en
+ * blanco salteados y excepciones léxicas. Cada analizador cuenta en campos propios y los agrega acá
+ * una sola vez, al llegar al EOF o al lanzar un error, así que mantenerlos siempre activos no cuesta
+ * nada apreciable aunque muchos hilos analicen a la vez.
+ */
+public final class LexerMetrics {
+
+    private static final TokenKind[] KINDS = TokenKind.values();
+    private static final LongAdder[] TOKENS = new LongAdder[KINDS.length];
+    private static final LongAdder COMMENT_BYTES = new LongAdder();
+    private static final LongAdder WHITESPACE_BYTES = new LongAdder();
+    private static final LongAdder EXCEPTIONS = new LongAdder();
+
+    static {
+        for (int i = 0; i < TOKENS.length; i++) {
+            TOKENS[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Valores de los contadores en un momento dado.
+     */
+    public record Snapshot(Map<TokenKind, Long> tokens, long commentBytes, long whitespaceBytes, long exceptions) {
+
+        public long totalTokens() {
+            long total = 0;
+            for (long count : tokens.values()) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+    private LexerMetrics() {
+    }
+
+    public static long tokens(TokenKind kind) {
+        return TOKENS[kind.ordinal()].sum();
+    }
+
+    public static long commentBytes() {
+        return COMMENT_BYTES.sum();
+    }
+
+    public static long whitespaceBytes() {
+        return WHITESPACE_BYTES.sum();
+    }
+
+    public static long exceptions() {
+        return EXCEPTIONS.sum();
+    }
+
+    public static Snapshot snapshot() {
+        Map<TokenKind, Long> tokens = new EnumMap<>(TokenKind.class);
+        for (TokenKind kind : KINDS) {
+            tokens.put(kind, TOKENS[kind.ordinal()].sum());
+        }
+        return new Snapshot(Collections.unmodifiableMap(tokens), COMMENT_BYTES.sum(), WHITESPACE_BYTES.sum(), EXCEPTIONS.sum());
+    }
+
+    public static void reset() {
+        for (LongAdder counter : TOKENS) {
+            counter.reset();
+        }
+        COMMENT_BYTES.reset();
+        WHITESPACE_BYTES.reset();
+        EXCEPTIONS.reset();
+    }
+
+    static void record(long[] kindCounts, long commentBytes, long whitespaceBytes, long exceptions) {
+        for (int i = 0; i < kindCounts.length; i++) {
+            if (kindCounts[i] != 0) {
+                TOKENS[i].add(kindCounts[i]);
+            }
+        }
+        COMMENT_BYTES.add(commentBytes);
+        WHITESPACE_BYTES.add(whitespaceBytes);
+        EXCEPTIONS.add(exceptions);
+    }
+}
@@ -0,0 +1,273 @@
+package compiler.LexicalAnalyzer;
+
+/**
+ * Tablas precalculadas del motor de análisis dirigido por tablas.
+ * Cada carácter (0-255) se asigna a una clase y cada par (estado, clase) a una entrada
+ * que codifica la acción, un indicador de control de longitud y un argumento
+ * (estado siguiente, tipo de token o código de error).
+ */
+final class LexerTables {
+
+    // Clases de caracteres
+    static final int C_WHITESPACE = 0;
+    static final int C_NEWLINE = 1;
+    static final int C_UPPER = 2;
+    static final int C_LOWER = 3;
+    static final int C_LETTER = 4;
+    static final int C_DIGIT = 5;
+    static final int C_UNDERSCORE = 6;
+    static final int C_QUOTE = 7;
+    static final int C_SLASH = 8;
+    static final int C_STAR = 9;
+    static final int C_EQUALS = 10;
+    static final int C_LESS = 11;
+    static final int C_GREATER = 12;
+    static final int C_PLUS = 13;
+    static final int C_AMPERSAND = 14;
+    static final int C_PIPE = 15;
+    static final int C_DOT = 16;
+    static final int C_PUNCTUATION = 17;
+    static final int C_NUL = 18;
+    static final int C_OTHER = 19;
+    static final int C_EOF = 20;
+    static final int CLASS_COUNT = 21;
+
+    // Estados
+    static final int S_START = 0;
+    static final int S_ID_CLASS = 1;
+    static final int S_ID_MET = 2;
+    static final int S_STRING = 3;
+    static final int S_SLASH = 4;
+    static final int S_LINE_COMMENT = 5;
+    static final int S_BLOCK_COMMENT = 6;
+    static final int S_BLOCK_STAR = 7;
+    static final int S_EQUALS = 8;
+    static final int S_LESS = 9;
+    static final int S_GREATER = 10;
+    static final int S_PLUS = 11;
+    static final int S_AMPERSAND = 12;
+    static final int S_PIPE = 13;
+    static final int S_INT = 14;
+    static final int S_FRACTION_START = 15;
+    static final int S_FRACTION = 16;
+    static final int STATE_COUNT = 17;
+
+    // Acciones
+    /** Agrega el carácter al lexema, lee el siguiente y pasa al estado indicado. */
+    static final int A_SHIFT = 0;
+    /** Lee el siguiente carácter sin agregarlo y pasa al estado indicado. */
+    static final int A_SKIP = 1;
+    /** Pasa al estado indicado sin consumir el carácter actual. */
+    static final int A_MOVE = 2;
+    /** Emite el token indicado sin consumir el carácter actual. */
+    static final int A_EMIT = 3;
+    /** Agrega el carácter, lee el siguiente y emite el token indicado. */
+    static final int A_SHIFT_EMIT = 4;
+    /** Lee el siguiente carácter sin agregarlo y emite el token indicado. */
+    static final int A_SKIP_EMIT = 5;
+    /** Lanza el error indicado sin consumir el carácter actual. */
+    static final int A_ERROR = 6;
+    /** Lee el siguiente carácter y lanza el error indicado. */
+    static final int A_SKIP_ERROR = 7;
+    /** Como {@link #A_SHIFT}, sumando además el dígito al valor del literal numérico. */
+    static final int A_DIGIT = 8;
+    /** Fin de archivo. */
+    static final int A_END = 9;
+
+    // Tipos de token emitidos
+    static final int K_ID_CLASS = 0;
+    static final int K_ID_MET_OR_KEYWORD = 1;
+    static final int K_STRING = 2;
+    static final int K_DIV = 3;
+    static final int K_EQUALS = 4;
+    static final int K_ASSIGN = 5;
+    static final int K_LESS_EQ = 6;
+    static final int K_LESS = 7;
+    static final int K_GREATER_EQ = 8;
+    static final int K_GREATER = 9;
+    static final int K_INCREMENT = 10;
+    static final int K_ADD = 11;
+    static final int K_AND = 12;
+    static final int K_OR = 13;
+    static final int K_INT = 14;
+    static final int K_DOUBLE = 15;
+    /** El tipo depende del carácter, ver {@link TokenKind#forSingleCharacter(int)}. */
+    static final int K_SINGLE_CHARACTER = 16;
+
+    /** Tipo de token de cada código; los que dependen del lexema quedan en {@code null}. */
+    static final TokenKind[] KINDS = {
+            TokenKind.ID_CLASS, null, TokenKind.STR_LITERAL, TokenKind.DIV_OP, TokenKind.EQUALS_OP,
+            TokenKind.ASSIGN_OP, TokenKind.LESS_EQ_OP, TokenKind.LESS_OP, TokenKind.GREATER_EQ_OP,
+            TokenKind.GREATER_OP, TokenKind.INCREMENT_OP, TokenKind.ADD_OP, TokenKind.AND_OP, TokenKind.OR_OP,
+            TokenKind.INT_LITERAL, TokenKind.DOUBLE_LITERAL, null
+    };
+
+    // Códigos de error
+    static final int E_SYMBOL = 0;
+    static final int E_ID_CLASS_LETTERS = 1;
+    static final int E_STRING_EOF = 2;
+    static final int E_STRING_NEWLINE = 3;
+    static final int E_COMMENT_UNCLOSED = 4;
+    static final int E_AND = 5;
+    static final int E_OR = 6;
+    static final int E_DOUBLE_FRACTION = 7;
+    static final int E_DOUBLE_DOTS = 8;
+    static final int E_NUMERIC = 9;
+
+    private static final int LIMITED = 1 << 6;
+
+    /** Clase de cada carácter de 0 a 255. */
+    static final byte[] CHARACTER_CLASSES = new byte[256];
+
+    /** Longitud máxima del lexema por estado, controlada en las entradas marcadas. */
+    static final int[] LENGTH_LIMITS = new int[STATE_COUNT];
+
+    /**
+     * Transiciones indexadas por {@code estado * CLASS_COUNT + clase}.
+     * Bits 8-11: acción, bit 6: controlar longitud, bits 0-5: argumento.
+     */
+    static final short[] TRANSITIONS = new short[STATE_COUNT * CLASS_COUNT];
+
+    static {
+        for (int c = 0; c < 256; c++) {
+            CHARACTER_CLASSES[c] = (byte) classify(c);
+        }
+        LENGTH_LIMITS[S_ID_CLASS] = LexicalAnalyzer.MAX_ID_LENGTH;
+        LENGTH_LIMITS[S_ID_MET] = LexicalAnalyzer.MAX_ID_LENGTH;
+        LENGTH_LIMITS[S_STRING] = LexicalAnalyzer.MAX_STRING_LENGTH;
+
+        // Inicio de token
+        fill(S_START, A_SKIP_ERROR, E_SYMBOL);
+        set(S_START, C_WHITESPACE, A_SKIP, S_START);
+        set(S_START, C_NEWLINE, A_SKIP, S_START);
+        set(S_START, C_EOF, A_END, 0);
+        set(S_START, C_UPPER, A_SHIFT, S_ID_CLASS);
+        set(S_START, C_LOWER, A_SHIFT, S_ID_MET);
+        set(S_START, C_QUOTE, A_SKIP, S_STRING);
+        set(S_START, C_SLASH, A_SHIFT, S_SLASH);
+        set(S_START, C_EQUALS, A_SHIFT, S_EQUALS);
+        set(S_START, C_DIGIT, A_DIGIT, S_INT);
+        set(S_START, C_LESS, A_SHIFT, S_LESS);
+        set(S_START, C_GREATER, A_SHIFT, S_GREATER);
+        set(S_START, C_PLUS, A_SHIFT, S_PLUS);
+        set(S_START, C_AMPERSAND, A_SHIFT, S_AMPERSAND);
+        set(S_START, C_PIPE, A_SHIFT, S_PIPE);
+        set(S_START, C_DOT, A_SHIFT_EMIT, K_SINGLE_CHARACTER);
+        set(S_START, C_STAR, A_SHIFT_EMIT, K_SINGLE_CHARACTER);
+        set(S_START, C_PUNCTUATION, A_SHIFT_EMIT, K_SINGLE_CHARACTER);
+
+        // idClass: solo letras
+        fill(S_ID_CLASS, A_EMIT, K_ID_CLASS);
+        set(S_ID_CLASS, C_UPPER, A_SHIFT | LIMITED, S_ID_CLASS);
+        set(S_ID_CLASS, C_LOWER, A_SHIFT | LIMITED, S_ID_CLASS);
+        set(S_ID_CLASS, C_LETTER, A_SHIFT | LIMITED, S_ID_CLASS);
+        set(S_ID_CLASS, C_DIGIT, A_ERROR | LIMITED, E_ID_CLASS_LETTERS);
+        set(S_ID_CLASS, C_UNDERSCORE, A_ERROR | LIMITED, E_ID_CLASS_LETTERS);
+
+        // idMetAt o palabra clave
+        fill(S_ID_MET, A_EMIT, K_ID_MET_OR_KEYWORD);
+        for (int c : new int[]{C_UPPER, C_LOWER, C_LETTER, C_DIGIT, C_UNDERSCORE}) {
+            set(S_ID_MET, c, A_SHIFT | LIMITED, S_ID_MET);
+        }
+
+        // Literal de cadena
+        fill(S_STRING, A_SHIFT | LIMITED, S_STRING);
+        set(S_STRING, C_QUOTE, A_SKIP_EMIT, K_STRING);
+        set(S_STRING, C_EOF, A_ERROR, E_STRING_EOF);
+        set(S_STRING, C_NUL, A_ERROR, E_STRING_EOF);
+        set(S_STRING, C_NEWLINE, A_ERROR, E_STRING_NEWLINE);
+
+        // División o comentarios
+        fill(S_SLASH, A_EMIT, K_DIV);
+        set(S_SLASH, C_SLASH, A_SKIP, S_LINE_COMMENT);
+        set(S_SLASH, C_STAR, A_SKIP, S_BLOCK_COMMENT);
+        fill(S_LINE_COMMENT, A_SKIP, S_LINE_COMMENT);
+        set(S_LINE_COMMENT, C_NEWLINE, A_MOVE, S_START);
+        set(S_LINE_COMMENT, C_EOF, A_MOVE, S_START);
+        fill(S_BLOCK_COMMENT, A_SKIP, S_BLOCK_COMMENT);
+        set(S_BLOCK_COMMENT, C_STAR, A_SKIP, S_BLOCK_STAR);
+        set(S_BLOCK_COMMENT, C_EOF, A_ERROR, E_COMMENT_UNCLOSED);
+        fill(S_BLOCK_STAR, A_MOVE, S_BLOCK_COMMENT);
+        set(S_BLOCK_STAR, C_SLASH, A_SKIP, S_START);
+
+        // Operadores de uno o dos caracteres
+        fill(S_EQUALS, A_EMIT, K_ASSIGN);
+        set(S_EQUALS, C_EQUALS, A_SHIFT_EMIT, K_EQUALS);
+        fill(S_LESS, A_EMIT, K_LESS);
+        set(S_LESS, C_EQUALS, A_SHIFT_EMIT, K_LESS_EQ);
+        fill(S_GREATER, A_EMIT, K_GREATER);
+        set(S_GREATER, C_EQUALS, A_SHIFT_EMIT, K_GREATER_EQ);
+        fill(S_PLUS, A_EMIT, K_ADD);
+        set(S_PLUS, C_PLUS, A_SHIFT_EMIT, K_INCREMENT);
+        fill(S_AMPERSAND, A_ERROR, E_AND);
+        set(S_AMPERSAND, C_AMPERSAND, A_SHIFT_EMIT, K_AND);
+        fill(S_PIPE, A_ERROR, E_OR);
+        set(S_PIPE, C_PIPE, A_SHIFT_EMIT, K_OR);
+
+        // Literales numéricos
+        fill(S_INT, A_EMIT, K_INT);
+        set(S_INT, C_DIGIT, A_DIGIT, S_INT);
+        set(S_INT, C_DOT, A_SHIFT, S_FRACTION_START);
+        fill(S_FRACTION_START, A_ERROR, E_DOUBLE_FRACTION);
+        set(S_FRACTION_START, C_DIGIT, A_DIGIT, S_FRACTION);
+        fill(S_FRACTION, A_EMIT, K_DOUBLE);
+        set(S_FRACTION, C_DIGIT, A_DIGIT, S_FRACTION);
+        set(S_FRACTION, C_DOT, A_ERROR, E_DOUBLE_DOTS);
+        for (int state : new int[]{S_INT, S_FRACTION}) {
+            set(state, C_UPPER, A_ERROR, E_NUMERIC);
+            set(state, C_LOWER, A_ERROR, E_NUMERIC);
+            set(state, C_LETTER, A_ERROR, E_NUMERIC);
+        }
+    }
+
+    private LexerTables() {
+    }
+
+    private static int classify(int c) {
+        if (c == '\n') return C_NEWLINE;
+        if (Character.isWhitespace(c)) return C_WHITESPACE;
+        if (Character.isUpperCase(c)) return C_UPPER;
+        if (Character.isLowerCase(c)) return C_LOWER;
+        if (Character.isLetter(c)) return C_LETTER;
+        if (Character.isDigit(c)) return C_DIGIT;
+        return switch (c) {
+            case '_' -> C_UNDERSCORE;
+            case '"' -> C_QUOTE;
+            case '/' -> C_SLASH;
+            case '*' -> C_STAR;
+            case '=' -> C_EQUALS;
+            case '<' -> C_LESS;
+            case '>' -> C_GREATER;
+            case '+' -> C_PLUS;
+            case '&' -> C_AMPERSAND;
+            case '|' -> C_PIPE;
+            case '.' -> C_DOT;
+            case '(', ')', '{', '}', '[', ']', ',', ';', '-', '!' -> C_PUNCTUATION;
+            case 0 -> C_NUL;
+            default -> C_OTHER;
+        };
+    }
+
+    private static void fill(int state, int action, int argument) {
+        for (int c = 0; c < CLASS_COUNT; c++) {
+            set(state, c, action, argument);
+        }
+    }
+
+    private static void set(int state, int characterClass, int action, int argument) {
+        int flags = action & LIMITED;
+        TRANSITIONS[state * CLASS_COUNT + characterClass] = (short) (((action & ~LIMITED) << 8) | flags | argument);
+    }
+
+    static int action(int entry) {
+        return entry >>> 8;
+    }
+
+    static boolean isLimited(int entry) {
+        return (entry & LIMITED) != 0;
+    }
+
+    static int argument(int entry) {
+        return entry & 0x3F;
+    }
+}
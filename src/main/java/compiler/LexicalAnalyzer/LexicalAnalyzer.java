@@ -3,9 +3,18 @@ package compiler.LexicalAnalyzer;
 import compiler.FileScanner;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Clase LexicalAnalyzer que se encarga de analizar léxicamente un archivo fuente.
@@ -14,288 +23,1138 @@ import java.util.Set;
  */
 public class LexicalAnalyzer {
 
-    private int row;
-    private int column;
+    /**
+     * Motor usado para reconocer los tokens, elegido al construir el analizador.
+     */
+    public enum Engine {
+        /** Despacho con condicionales y predicados de {@link Character}. */
+        CLASSIC,
+        /** Autómata con tablas precalculadas de clases de caracteres y transiciones. */
+        TABLE
+    }
+
+    /**
+     * Versión de los resultados del analizador. Se incrementa con cada cambio que altere los tokens,
+     * posiciones o errores de algún archivo, para invalidar los guardados por {@link TokenCache}.
+     */
+    public static final int VERSION = 3;
+
     private int currentCharacter;
-    private final StringBuilder currentLexeme = new StringBuilder();
+    private int currentOffset;
+    private int tokenStart;
+    private int lexemeLength;
+    private int tokenOffset;
+    private int tokenLength;
+    private long tokenValue;
     private final FileScanner fileScanner;
-    private static final int MAX_ID_LENGTH = 1024;
-    private static final int MAX_STRING_LENGTH = 1024;
+    private ByteBuffer source;
+    private final Engine engine;
+    private LineIndex lines;
+    private LineIndex.Tracker positions;
+    private SymbolTable symbolTable;
+    private List<LexicalException> diagnostics;
+    private LexicalException pendingError;
+    private final long[] kindCounts = new long[TokenKind.values().length];
+    private long commentBytes;
+    private long pendingCommentBytes;
+    private long whitespaceBytes;
+    private long exceptions;
+    private int previousEnd;
+    private boolean preservingTrivia;
+    private int triviaStart;
+    private boolean recordingMetrics = true;
+    private int lastCommentBytes;
+    private List<SlowTokenEvent.Held> heldSlowTokens;
+    private byte[] content = new byte[0];
+    static final int MAX_ID_LENGTH = 1024;
+    static final int MAX_STRING_LENGTH = 1024;
 
-    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
-            "class", "impl", "else", "false", "if", "ret", "while", "true", "nil", "new",
-            "fn", "st", "pub", "self", "div", "void", "start"
-    ));
+    /**
+     * Los tokens y comentarios de al menos esta cantidad de bytes se informan con un {@link SlowTokenEvent}.
+     */
+    static final int SLOW_TOKEN_LENGTH = MAX_STRING_LENGTH / 2;
 
     public LexicalAnalyzer(String filePath) throws IOException {
+        this(filePath, Engine.CLASSIC);
+    }
+
+    public LexicalAnalyzer(String filePath, Engine engine) throws IOException {
+        this(openSource(filePath), engine, 0, null);
+    }
+
+    /**
+     * Analizador de un código fuente que ya está en memoria, por ejemplo recibido de un editor.
+     * El arreglo no se copia, así que no debe modificarse mientras se analiza.
+     */
+    public LexicalAnalyzer(byte[] content) {
+        this(openContent(content), Engine.CLASSIC, 0, null);
+    }
+
+    /**
+     * Analizador de los bytes entre la posición y el límite de {@code content}, que no se copian.
+     */
+    public LexicalAnalyzer(ByteBuffer content) {
+        this(Engine.CLASSIC);
+        reset(content);
+    }
+
+    /**
+     * Analizador de todo lo que queda por leer de {@code input}, que no se cierra.
+     */
+    public LexicalAnalyzer(InputStream input) throws IOException {
+        this(Engine.CLASSIC);
+        reset(input);
+    }
+
+    /**
+     * Analizador sin código fuente, que entrega solo el EOF hasta que se le da uno con algún {@code reset}.
+     * Pensado para reutilizar una misma instancia, con su buffer y su tabla de símbolos, en muchos códigos fuente.
+     */
+    public LexicalAnalyzer(Engine engine) {
+        this(new FileScanner(new byte[0]), engine, 0, null);
+    }
+
+    private static FileScanner openContent(byte[] content) {
+        checkNotEmpty(content.length);
+        return new FileScanner(content);
+    }
+
+    private static void checkNotEmpty(int size) {
+        if (size == 0) {
+            throw new LexicalException("El archivo 'tinyS' está vacío", "", 0, 0);
+        }
+    }
+
+    /**
+     * Abre el archivo fuente comprobando su extensión y que no esté vacío.
+     */
+    static FileScanner openSource(String filePath) throws IOException {
         if (!filePath.endsWith(".s")) {
             // Error de extensión de archivo, el lexema es la ruta del archivo.
             throw new LexicalException("La extensión del archivo debe ser '.s'", filePath, 0, 0);
         }
-        this.fileScanner = new FileScanner(filePath);
+        FileScanner fileScanner = new FileScanner(filePath);
         if (fileScanner.isEmpty()) {
             // Error de archivo vacío, el lexema es la ruta del archivo.
             throw new LexicalException("El archivo 'tinyS' está vacío", filePath, 0, 0);
         }
-        this.row = 1;
-        this.column = 1;
-        this.currentCharacter = readCharacter();
+        return fileScanner;
     }
 
-    private int readCharacter() {
+    /**
+     * Analizador que empieza en {@code offset} de un archivo ya abierto. Se usa para analizar partes de
+     * un archivo por separado, que pueden compartir el índice de líneas del archivo si ya está armado
+     * ({@code null} para armarlo recién cuando se pida una posición).
+     */
+    LexicalAnalyzer(FileScanner fileScanner, Engine engine, int offset, LineIndex lines) {
+        this.fileScanner = fileScanner;
+        this.engine = engine;
+        start(offset, lines);
+    }
+
+    private void start(int offset, LineIndex lines) {
+        this.source = fileScanner.buffer();
+        this.lines = lines;
+        fileScanner.position(offset);
+        previousEnd = offset;
+        triviaStart = offset;
         try {
-            int charRead = fileScanner.readCharacter();
-            if (charRead > 255) {
-                // Error de símbolo, el lexema es el carácter inválido.
-                throw new LexicalException("Símbolo inválido detectado (fuera de ASCII)", String.valueOf((char) charRead), row, column);
-            }
-            if (charRead == '\n') {
-                row++;
-                column = 1;
+            currentCharacter = readCharacter();
+        } catch (LexicalException e) {
+            // Se informa al pedir el primer token, para que el modo de recuperación también lo registre
+            pendingError = e;
+        }
+    }
+
+    /**
+     * Pasa a analizar {@code content} desde el principio, que no se copia ni debe modificarse mientras se analiza.
+     * Se conservan el motor, la tabla de símbolos y los modos; los errores de recuperación anteriores se descartan.
+     * @return Este mismo analizador.
+     */
+    public LexicalAnalyzer reset(byte[] content) {
+        checkNotEmpty(content.length);
+        return restart(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Como {@link #reset(byte[])}, con los bytes entre la posición y el límite de {@code content}.
+     */
+    public LexicalAnalyzer reset(ByteBuffer content) {
+        checkNotEmpty(content.remaining());
+        return restart(content.position() == 0 ? content : content.slice());
+    }
+
+    /**
+     * Pasa a analizar {@code text} desde el principio. El texto se codifica en UTF-8 en un buffer interno
+     * que se reutiliza en el próximo {@code reset}, así que los lexemas de los tokens anteriores que todavía
+     * no se hayan decodificado dejan de ser válidos.
+     */
+    public LexicalAnalyzer reset(CharSequence text) {
+        checkNotEmpty(text.length());
+        int size = encode(text);
+        return restart(ByteBuffer.wrap(content, 0, size));
+    }
+
+    /**
+     * Pasa a analizar todo lo que queda por leer de {@code input}, sin cerrarlo. Se lee completo al buffer
+     * interno, con las mismas condiciones que {@link #reset(CharSequence)}.
+     */
+    public LexicalAnalyzer reset(InputStream input) throws IOException {
+        int size = 0;
+        while (true) {
+            if (size == content.length) {
+                content = Arrays.copyOf(content, Math.max(8192, size * 2));
+            }
+            int count = input.read(content, size, content.length - size);
+            if (count < 0) {
+                break;
+            }
+            size += count;
+        }
+        checkNotEmpty(size);
+        return restart(ByteBuffer.wrap(content, 0, size));
+    }
+
+    /**
+     * Codifica {@code text} en UTF-8 en el buffer interno, agrandándolo si no alcanza. Los surrogates sin par
+     * se reemplazan por '?', como en {@link String#getBytes(java.nio.charset.Charset)}.
+     * @return La cantidad de bytes.
+     */
+    private int encode(CharSequence text) {
+        int length = text.length();
+        if ((long) length * 3 > content.length) {
+            content = new byte[(int) Math.min((long) length * 3, Integer.MAX_VALUE - 8)];
+        }
+        byte[] bytes = content;
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | c >> 6);
+                bytes[size++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[size++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[size++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
             } else {
-                column++;
+                bytes[size++] = (byte) (0xE0 | c >> 12);
+                bytes[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[size++] = (byte) (0x80 | c & 0x3F);
             }
-            return charRead;
-        } catch (IOException e) {
-            return -1;
         }
+        return size;
+    }
+
+    /**
+     * Reinicia el estado del análisis sobre otro código fuente. Los contadores del anterior se agregan
+     * a {@link LexerMetrics} aunque no se haya llegado a su EOF.
+     */
+    private LexicalAnalyzer restart(ByteBuffer newSource) {
+        publishMetrics();
+        pendingCommentBytes = 0;
+        pendingError = null;
+        positions = null;
+        if (diagnostics != null && !diagnostics.isEmpty()) {
+            // Una lista nueva, porque la de getDiagnostics() puede seguir en uso
+            diagnostics = new ArrayList<>();
+        }
+        fileScanner.reset(newSource);
+        start(0, null);
+        return this;
+    }
+
+    private int readCharacter() {
+        int charRead = readUncheckedCharacter();
+        if (charRead > 255) {
+            // Queda como carácter actual para que el modo de recuperación lo saltee
+            currentCharacter = charRead;
+            throw outsideAsciiError(charRead);
+        }
+        return charRead;
+    }
+
+    /**
+     * Error de símbolo para un carácter mayor a 255 en la posición actual; el lexema es el carácter inválido.
+     */
+    private LexicalException outsideAsciiError(int character) {
+        return error("Símbolo inválido detectado (fuera de ASCII)", String.valueOf((char) character), currentOffset);
+    }
+
+    /**
+     * Lee el siguiente carácter. Solo se sigue su posición en bytes: filas y columnas se calculan con
+     * el índice de líneas cuando se piden.
+     */
+    private int readUncheckedCharacter() {
+        currentOffset = fileScanner.position();
+        return fileScanner.readCharacter();
+    }
+
+    /**
+     * Avanza como si se leyeran uno por uno los bytes desde la posición de lectura hasta {@code stop}
+     * (sin incluirlo); el último queda como carácter actual. Todos deben ser ASCII, así que cada byte
+     * es un carácter.
+     * @return La cantidad de bytes salteados.
+     */
+    private int skipTo(int stop) {
+        int count = stop - fileScanner.position();
+        if (count > 0) {
+            currentOffset = stop - 1;
+            currentCharacter = fileScanner.byteAt(currentOffset);
+            fileScanner.position(stop);
+        }
+        return count;
+    }
+
+    /**
+     * Decodifica el código fuente desde {@code from} hasta el carácter actual (sin incluirlo).
+     * Solo se usa para palabras clave y mensajes de error; los tokens guardan la posición del lexema.
+     */
+    private String lexemeText(int from) {
+        return Token.decode(source, from, currentOffset - from);
+    }
+
+    /**
+     * Registra el token que empieza en {@code tokenStart} y termina antes del carácter actual.
+     */
+    private TokenKind emit(TokenKind kind) {
+        return emit(kind, tokenStart, currentOffset - tokenStart);
+    }
+
+    private TokenKind emit(TokenKind kind, int offset, int length) {
+        tokenOffset = offset;
+        tokenLength = length;
+        return kind;
+    }
+
+    /**
+     * Error léxico en el carácter de {@code offset}; su fila y columna se calculan recién acá.
+     */
+    private LexicalException error(String description, String lexeme, int offset) {
+        return new LexicalException(description, lexeme, row(offset), column(offset));
+    }
+
+    private LineIndex lines() {
+        if (lines == null) {
+            lines = LineIndex.build(source, fileScanner.size());
+        }
+        return lines;
+    }
+
+    /**
+     * Fila (desde 1) del carácter en {@code offset}, calculada a pedido con un índice de los comienzos
+     * de línea que se arma la primera vez.
+     */
+    public int row(int offset) {
+        return lines().row(offset);
+    }
+
+    /**
+     * Columna (desde 1) del carácter en {@code offset}, contando caracteres y no bytes.
+     */
+    public int column(int offset) {
+        return lines().column(offset);
+    }
+
+    /**
+     * Posición del primer carácter del último token; la de los strings es la de la comilla inicial.
+     */
+    private int tokenStart(TokenKind kind) {
+        return kind == TokenKind.STR_LITERAL ? tokenOffset - 1 : tokenOffset;
+    }
+
+    /**
+     * Guarda los identificadores y strings reconocidos desde ahora en la tabla indicada, que puede ser
+     * compartida con otros analizadores si es {@link SymbolTable#concurrent()}; con {@code null} se deja de hacerlo.
+     */
+    public void setSymbolTable(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
     }
 
     public Token nextToken() {
-        currentLexeme.setLength(0);
-        int initialRow = row;
-        int initialColumn = column > 1 ? column - 1 : 1;
+        TokenKind kind = scan();
+        if (positions == null) {
+            positions = lines().tracker();
+        }
+        positions.moveTo(tokenStart(kind));
+        int row = positions.row();
+        int column = positions.column();
+        Token token;
+        if (kind.hasFixedLexeme()) {
+            token = new Token(kind, tokenOffset, row, column);
+        } else if (symbolTable != null && kind.hasSymbol()) {
+            token = new Token(kind, tokenOffset, tokenLength, row, column, symbolTable, tokenSymbol(kind));
+        } else if (kind.isNumeric()) {
+            token = new Token(kind, source, tokenOffset, tokenLength, row, column, tokenValue);
+        } else {
+            token = new Token(kind, source, tokenOffset, tokenLength, row, column);
+        }
+        if (preservingTrivia) {
+            attachTrivia(token, kind);
+        }
+        return token;
+    }
+
+    /**
+     * Pega al token la trivia anterior que no quedó como final del token previo y la que lo sigue
+     * hasta el fin de su línea. La final se busca mirando los bytes sin avanzar el analizador.
+     */
+    private void attachTrivia(Token token, TokenKind kind) {
+        int start = tokenStart(kind);
+        int trailingEnd = kind == TokenKind.EOF ? currentOffset : Trivia.trailingEnd(source, currentOffset, fileScanner.size());
+        token.attachTrivia(new Trivia(source, triviaStart, start - triviaStart),
+                new Trivia(source, currentOffset, trailingEnd - currentOffset));
+        triviaStart = trailingEnd;
+    }
+
+    /**
+     * Activa o desactiva el modo que conserva la trivia: los tokens devueltos por {@link #nextToken()}
+     * llevan los espacios y comentarios que los rodean como {@link Trivia}, sin copiarlos.
+     * La trivia de cada token empieza donde terminó la final del anterior, así que juntos cubren todo el código
+     * fuente salvo lo salteado por errores en modo de recuperación.
+     */
+    public void setPreservingTrivia(boolean preservingTrivia) {
+        if (preservingTrivia && !this.preservingTrivia) {
+            triviaStart = currentOffset;
+        }
+        this.preservingTrivia = preservingTrivia;
+    }
+
+    public boolean isPreservingTrivia() {
+        return preservingTrivia;
+    }
+
+    /**
+     * Analiza el archivo completo y guarda sus tokens, incluido el EOF final, en un {@link TokenBuffer}.
+     */
+    public TokenBuffer tokenize() {
+        TokenBuffer tokens = new TokenBuffer(source, TokenBuffer.estimateCapacity(fileScanner.size()), symbolTable);
+        if (lines != null) {
+            tokens.useLines(lines);
+        }
+        drainTo(tokens);
+        return tokens;
+    }
+
+    /**
+     * Entrega los tokens restantes, incluido el EOF final, a medida que se reconocen.
+     * No crea objetos por token, así que recorre archivos de cualquier tamaño en memoria constante.
+     */
+    public void drainTo(TokenSink sink) {
+        while (scanInto(sink) != TokenKind.EOF) {
+            // Seguir hasta el fin de archivo
+        }
+    }
+
+    /**
+     * Reconoce el siguiente token y lo entrega al receptor.
+     */
+    TokenKind scanInto(TokenSink sink) {
+        TokenKind kind = scan();
+        sink.accept(kind, tokenOffset, tokenLength, tokenSymbol(kind), tokenValue);
+        return kind;
+    }
+
+    private int tokenSymbol(TokenKind kind) {
+        if (symbolTable == null || !kind.hasSymbol()) {
+            return SymbolTable.NO_SYMBOL;
+        }
+        return symbolTable.intern(source, tokenOffset, tokenLength);
+    }
+
+    /**
+     * Recorre los tokens restantes a medida que se reconocen; el último es el EOF.
+     * Comparte el estado del analizador, por lo que solo se puede recorrer una vez.
+     */
+    public Iterator<Token> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Divisor secuencial y ordenado sobre los tokens restantes; un error léxico se lanza al avanzar.
+     */
+    public Spliterator<Token> spliterator() {
+        return new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+            private boolean finished;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Token> action) {
+                if (finished) {
+                    return false;
+                }
+                Token token = nextToken();
+                finished = token.getKind() == TokenKind.EOF;
+                action.accept(token);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Flujo perezoso de los tokens restantes, incluido el EOF; cada token se reconoce cuando se consume.
+     */
+    public Stream<Token> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Código fuente completo, para obtener los lexemas de los tokens entregados a un {@link TokenSink}.
+     */
+    public ByteBuffer getSource() {
+        return source;
+    }
+
+    /**
+     * Posición del carácter actual, es decir, el fin del último token reconocido.
+     */
+    int position() {
+        return currentOffset;
+    }
+
+    /**
+     * Activa o desactiva el modo de recuperación. En este modo los errores léxicos no se lanzan: se
+     * registran en {@link #getDiagnostics()}, se saltea el resto del lexema inválido hasta el próximo
+     * espacio en blanco y se sigue analizando.
+     */
+    public void setRecovering(boolean recovering) {
+        if (recovering && diagnostics == null) {
+            diagnostics = new ArrayList<>();
+        } else if (!recovering) {
+            diagnostics = null;
+        }
+    }
+
+    public boolean isRecovering() {
+        return diagnostics != null;
+    }
+
+    /**
+     * Errores encontrados en modo de recuperación, en el orden del código fuente.
+     */
+    public List<LexicalException> getDiagnostics() {
+        return diagnostics != null ? Collections.unmodifiableList(diagnostics) : List.of();
+    }
+
+    /**
+     * Reconoce el siguiente token sin crear objetos; su posición queda en los campos {@code token*}.
+     */
+    private TokenKind scan() {
+        TokenKind kind;
+        if (diagnostics == null) {
+            try {
+                kind = scanToken();
+            } catch (LexicalException e) {
+                exceptions++;
+                publishMetrics();
+                throw e;
+            }
+        } else {
+            kind = scanRecovering();
+        }
+        count(kind);
+        return kind;
+    }
+
+    private TokenKind scanRecovering() {
+        while (true) {
+            int start = fileScanner.position();
+            int startOffset = currentOffset;
+            try {
+                return scanToken();
+            } catch (LexicalException e) {
+                exceptions++;
+                diagnostics.add(e);
+                resynchronize(start, startOffset);
+                // Lo salteado no es ni espacio ni comentario
+                commentBytes += pendingCommentBytes;
+                pendingCommentBytes = 0;
+                previousEnd = currentOffset;
+                triviaStart = currentOffset;
+            }
+        }
+    }
+
+    /**
+     * Suma el token a los contadores locales; se agregan a {@link LexerMetrics} al llegar al EOF.
+     */
+    private void count(TokenKind kind) {
+        kindCounts[kind.ordinal()]++;
+        int start = tokenStart(kind);
+        whitespaceBytes += start - previousEnd - pendingCommentBytes;
+        commentBytes += pendingCommentBytes;
+        lastCommentBytes = (int) pendingCommentBytes;
+        pendingCommentBytes = 0;
+        previousEnd = currentOffset;
+        if (currentOffset - start >= SLOW_TOKEN_LENGTH) {
+            slowToken(kind.getName(), currentOffset - start, start);
+        }
+        if (kind == TokenKind.EOF) {
+            publishMetrics();
+        }
+    }
+
+    /**
+     * Registra un comentario que empieza en {@code tokenStart} y termina antes del carácter actual.
+     */
+    private void countComment() {
+        int length = currentOffset - tokenStart;
+        pendingCommentBytes += length;
+        if (length >= SLOW_TOKEN_LENGTH) {
+            slowToken("comentario", length, tokenStart);
+        }
+    }
+
+    /**
+     * Informa un token largo, o lo guarda si los tokens de este análisis pueden descartarse.
+     */
+    private void slowToken(String kind, int length, int offset) {
+        if (recordingMetrics) {
+            SlowTokenEvent.report(this, kind, length, offset);
+        } else if (heldSlowTokens != null) {
+            heldSlowTokens.add(new SlowTokenEvent.Held(kind, length, offset));
+        }
+    }
+
+    /**
+     * Agrega los contadores locales a {@link LexerMetrics} y los reinicia.
+     */
+    private void publishMetrics() {
+        if (recordingMetrics) {
+            LexerMetrics.record(kindCounts, commentBytes, whitespaceBytes, exceptions);
+        }
+        Arrays.fill(kindCounts, 0);
+        commentBytes = 0;
+        whitespaceBytes = 0;
+        exceptions = 0;
+    }
+
+    /**
+     * Deja de agregar los contadores a {@link LexerMetrics} y de informar los tokens largos, para
+     * análisis especulativos cuyos tokens pueden descartarse. Quien los conserve los cuenta con
+     * {@link #lastCommentBytes()}; los tokens largos se guardan en {@code heldSlowTokens}, si no es nulo.
+     */
+    void disableMetrics(List<SlowTokenEvent.Held> heldSlowTokens) {
+        recordingMetrics = false;
+        this.heldSlowTokens = heldSlowTokens;
+    }
+
+    /**
+     * Bytes de comentarios entre el token anterior y el último token reconocido.
+     */
+    int lastCommentBytes() {
+        return lastCommentBytes;
+    }
+
+    /**
+     * Saltea el resto del lexema inválido, hasta un espacio en blanco o el fin del archivo. Si el error
+     * quedó dentro de un string o de un comentario, se saltea hasta su cierre (o el fin de la línea si
+     * el string no se cierra en ella), para no analizar su contenido como código.
+     */
+    private void resynchronize(int failedScanStart, int failedScanOffset) {
+        // Un tokenStart anterior al análisis fallido es del token previo
+        int literalEnd = tokenStart >= failedScanOffset ? literalEnd(tokenStart) : -1;
+        if (literalEnd > currentOffset) {
+            while (currentOffset < literalEnd && currentCharacter != -1) {
+                currentCharacter = readUncheckedCharacter();
+            }
+            if (currentCharacter > 255) {
+                // El carácter que sigue al literal no pasó por readCharacter(): se informa al pedir el próximo token
+                pendingError = outsideAsciiError(currentCharacter);
+            }
+            return;
+        }
+        if (fileScanner.position() == failedScanStart && currentCharacter != -1) {
+            // Siempre se avanza al menos un carácter para no repetir el mismo error
+            currentCharacter = readUncheckedCharacter();
+        }
+        while (currentCharacter != -1 && !Character.isWhitespace(currentCharacter)) {
+            currentCharacter = readUncheckedCharacter();
+        }
+    }
+
+    /**
+     * Posición siguiente al cierre del string o comentario que empieza en {@code start}: la comilla de
+     * cierre, el salto de línea que corta el string o termina el comentario de una línea, o el
+     * {@code *}{@code /}; el fin del archivo si no se cierran. -1 si en {@code start} no empieza ninguno.
+     */
+    private int literalEnd(int start) {
+        int size = fileScanner.size();
+        if (start >= size) {
+            return -1;
+        }
+        int first = source.get(start);
+        int second = start + 1 < size ? source.get(start + 1) : -1;
+        if (first == '"') {
+            for (int i = start + 1; i < size; i++) {
+                int b = source.get(i);
+                if (b == '"') {
+                    return i + 1;
+                }
+                if (b == '\n') {
+                    return i;
+                }
+            }
+            return size;
+        }
+        if (first == '/' && second == '/') {
+            for (int i = start + 2; i < size; i++) {
+                if (source.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return size;
+        }
+        if (first == '/' && second == '*') {
+            for (int i = start + 2; i + 1 < size; i++) {
+                if (source.get(i) == '*' && source.get(i + 1) == '/') {
+                    return i + 2;
+                }
+            }
+            return size;
+        }
+        return -1;
+    }
+
+    private TokenKind scanToken() {
+        if (pendingError != null) {
+            LexicalException error = pendingError;
+            pendingError = null;
+            throw error;
+        }
+        if (engine == Engine.TABLE) {
+            return nextTableDrivenToken();
+        }
+        return nextClassicToken();
+    }
+
+    /**
+     * Saltea espacios y comentarios en un ciclo, sin recursión, así que una sucesión de comentarios
+     * de cualquier largo no hace crecer la pila.
+     */
+    private TokenKind nextClassicToken() {
+        TokenKind kind;
+        do {
+            kind = nextClassicTokenOrComment();
+        } while (kind == null);
+        return kind;
+    }
 
+    /**
+     * Reconoce el siguiente token, o saltea un comentario y devuelve {@code null}.
+     */
+    private TokenKind nextClassicTokenOrComment() {
         while (Character.isWhitespace(currentCharacter)) {
-            initialRow = row;
-            initialColumn = column;
+            if (currentCharacter == ' ') {
+                // Sangría: todos los espacios siguientes de una vez
+                skipTo(ByteScanner.skipSpaces(source, fileScanner.position(), fileScanner.size()));
+            }
             currentCharacter = readCharacter();
         }
 
         if (currentCharacter == -1) {
-            return new Token("EOF", "", row, column);
+            return emit(TokenKind.EOF, currentOffset, 0);
         }
 
-        currentLexeme.append((char) currentCharacter);
-        initialColumn = column -1; // Ajustar la columna inicial al caracter actual
+        tokenStart = currentOffset;
+        lexemeLength = 1;
 
         if (Character.isUpperCase(currentCharacter)) {
-            return processIdClass(initialRow, initialColumn);
+            return processIdClass();
         } else if (Character.isLowerCase(currentCharacter)) {
-            return processIdMethodAttributeOrKeyword(initialRow, initialColumn);
+            return processIdMethodAttributeOrKeyword();
         } else if (currentCharacter == '"') {
-            return processStringLiteral(initialRow, initialColumn);
+            return processStringLiteral();
         } else if (currentCharacter == '/') {
-            return processCommentOrDivision(initialRow, initialColumn);
+            return processCommentOrDivision();
         } else if (currentCharacter == '=') {
-            return processEqualsOrAssign(initialRow, initialColumn);
+            return processEqualsOrAssign();
         } else if (Character.isDigit(currentCharacter)) {
-            return processIntOrDoubleLiteral(initialRow, initialColumn);
+            return processIntOrDoubleLiteral();
         } else if (currentCharacter == '<') {
-            return processLessOrLessEqual(initialRow, initialColumn);
+            return processLessOrLessEqual();
         } else if (currentCharacter == '>') {
-            return processGreaterOrGreaterEqual(initialRow, initialColumn);
+            return processGreaterOrGreaterEqual();
         } else if (currentCharacter == '+') {
-            return processAddOrIncrement(initialRow, initialColumn);
+            return processAddOrIncrement();
         } else if (currentCharacter == '&') {
-            return processAndOperator(initialRow, initialColumn);
+            return processAndOperator();
         } else if (currentCharacter == '|') {
-            return processOrOperator(initialRow, initialColumn);
+            return processOrOperator();
         } else {
-            return processSingleCharacterToken(initialRow, initialColumn);
+            return processSingleCharacterToken();
         }
     }
 
-    private Token processIdClass(int initialRow, int initialColumn) {
+    /**
+     * Reconoce el siguiente token recorriendo las tablas de {@link LexerTables}.
+     * Produce los mismos tokens y errores que el motor clásico, leyendo los caracteres en el mismo orden.
+     */
+    private TokenKind nextTableDrivenToken() {
+        int state = LexerTables.S_START;
+        // Valor del literal numérico, acumulado como en processIntOrDoubleLiteral
+        long value = 0;
+        int fractionDigits = 0;
+        while (true) {
+            int character = currentCharacter;
+            int characterClass = character < 0 ? LexerTables.C_EOF : LexerTables.CHARACTER_CLASSES[character];
+            int entry = LexerTables.TRANSITIONS[state * LexerTables.CLASS_COUNT + characterClass];
+            if (state == LexerTables.S_START && characterClass > LexerTables.C_NEWLINE) {
+                tokenStart = currentOffset;
+                lexemeLength = 0;
+            }
+            if (LexerTables.isLimited(entry) && lexemeLength >= LexerTables.LENGTH_LIMITS[state]) {
+                throw tableLengthError(state, character);
+            }
+            int argument = LexerTables.argument(entry);
+            switch (LexerTables.action(entry)) {
+                case LexerTables.A_SHIFT -> {
+                    lexemeLength++;
+                    currentCharacter = readCharacter();
+                    state = argument;
+                }
+                case LexerTables.A_DIGIT -> {
+                    value = NumericLiterals.accumulate(value, character - '0');
+                    if (argument == LexerTables.S_FRACTION) {
+                        fractionDigits++;
+                    }
+                    lexemeLength++;
+                    currentCharacter = readCharacter();
+                    state = argument;
+                }
+                case LexerTables.A_SKIP -> {
+                    currentCharacter = readCharacter();
+                    if (argument == LexerTables.S_START && state != LexerTables.S_START) {
+                        // Fin de un comentario de varias líneas
+                        countComment();
+                    }
+                    state = argument;
+                }
+                case LexerTables.A_MOVE -> {
+                    if (argument == LexerTables.S_START) {
+                        // Fin de un comentario de una línea
+                        countComment();
+                    }
+                    state = argument;
+                }
+                case LexerTables.A_EMIT -> {
+                    return tableToken(argument, value, fractionDigits);
+                }
+                case LexerTables.A_SHIFT_EMIT -> {
+                    lexemeLength++;
+                    currentCharacter = readCharacter();
+                    return tableToken(argument, value, fractionDigits);
+                }
+                case LexerTables.A_SKIP_EMIT -> {
+                    currentCharacter = readCharacter();
+                    return tableToken(argument, value, fractionDigits);
+                }
+                case LexerTables.A_ERROR -> throw tableError(argument, character);
+                case LexerTables.A_SKIP_ERROR -> {
+                    currentCharacter = readCharacter();
+                    throw tableError(argument, character);
+                }
+                default -> {
+                    return emit(TokenKind.EOF, currentOffset, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param value Valor acumulado de los dígitos, si el token es un literal numérico.
+     * @param fractionDigits Dígitos después del punto, si el token es un 'doubleLiteral'.
+     */
+    private TokenKind tableToken(int kind, long value, int fractionDigits) {
+        switch (kind) {
+            case LexerTables.K_ID_MET_OR_KEYWORD -> {
+                return identifierOrKeyword();
+            }
+            case LexerTables.K_SINGLE_CHARACTER -> {
+                return emit(TokenKind.forSingleCharacter(fileScanner.byteAt(tokenStart)));
+            }
+            case LexerTables.K_STRING -> {
+                if (lexemeLength == 0) {
+                    throw error("El string está vacío", "\"\"", tokenStart);
+                }
+                // El lexema no incluye las comillas y el carácter actual sigue a la de cierre.
+                return emit(TokenKind.STR_LITERAL, tokenStart + 1, currentOffset - tokenStart - 2);
+            }
+            case LexerTables.K_INT -> {
+                return emitInt(value);
+            }
+            case LexerTables.K_DOUBLE -> {
+                return emitDouble(NumericLiterals.toDouble(value, fractionDigits, source, tokenStart, currentOffset - tokenStart));
+            }
+            default -> {
+                return emit(LexerTables.KINDS[kind]);
+            }
+        }
+    }
+
+    private LexicalException tableLengthError(int state, int character) {
+        return switch (state) {
+            case LexerTables.S_ID_CLASS -> error("La longitud del 'idClass' excede los " + MAX_ID_LENGTH + " caracteres", lexemeText(tokenStart) + (char) character, tokenStart);
+            case LexerTables.S_ID_MET -> error("La longitud del 'idMetAt' excede los " + MAX_ID_LENGTH + " caracteres", lexemeText(tokenStart) + (char) character, tokenStart);
+            default -> error("La longitud del string excede los " + MAX_STRING_LENGTH + " caracteres", "\"" + lexemeText(tokenStart + 1) + (char) character + "...", tokenStart);
+        };
+    }
+
+    private LexicalException tableError(int error, int character) {
+        return switch (error) {
+            case LexerTables.E_SYMBOL -> error("Símbolo no pertenece al lenguaje", String.valueOf((char) character), tokenStart);
+            case LexerTables.E_ID_CLASS_LETTERS -> error("'idClass' inválido, solo puede contener letras", lexemeText(tokenStart) + (char) character, tokenStart);
+            case LexerTables.E_STRING_EOF -> error("String inválido, se encontró EOF o NUL", "\"" + lexemeText(tokenStart + 1), tokenStart);
+            case LexerTables.E_STRING_NEWLINE -> error("String sin cerrar, salto de línea encontrado", "\"" + lexemeText(tokenStart + 1), tokenStart);
+            case LexerTables.E_COMMENT_UNCLOSED -> error("Comentario de varias líneas sin cerrar", "/*", tokenStart);
+            case LexerTables.E_AND -> error("Operación 'and' inválida, se esperaba '&&'", "&", tokenStart);
+            case LexerTables.E_OR -> error("Operación 'or' inválida, se esperaba '||'", "|", tokenStart);
+            case LexerTables.E_DOUBLE_FRACTION -> error("Literal doble inválido, falta la parte fraccionaria", lexemeText(tokenStart), tokenStart);
+            case LexerTables.E_DOUBLE_DOTS -> error("Literal doble inválido, múltiples puntos decimales", lexemeText(tokenStart) + ".", tokenStart);
+            default -> error("Literal numérico inválido", lexemeText(tokenStart) + (char) character, tokenStart);
+        };
+    }
+
+    /**
+     * Devuelve la palabra clave correspondiente al lexema actual o, si no lo es, un 'idMetAt'.
+     */
+    private TokenKind identifierOrKeyword() {
+        TokenKind keyword = KeywordTable.lookup(source, tokenStart, currentOffset - tokenStart);
+        return emit(keyword != null ? keyword : TokenKind.ID_MET_AT);
+    }
+
+    private TokenKind processIdClass() {
+        int lastCharacter = currentCharacter;
         currentCharacter = readCharacter();
         while (Character.isLetterOrDigit(currentCharacter) || currentCharacter == '_') {
-            if (currentLexeme.length() >= MAX_ID_LENGTH) {
-                String lexeme = currentLexeme.append((char) currentCharacter).toString();
-                throw new LexicalException("La longitud del 'idClass' excede los " + MAX_ID_LENGTH + " caracteres", lexeme, initialRow, initialColumn);
+            if (lexemeLength >= MAX_ID_LENGTH) {
+                String lexeme = lexemeText(tokenStart) + (char) currentCharacter;
+                throw error("La longitud del 'idClass' excede los " + MAX_ID_LENGTH + " caracteres", lexeme, tokenStart);
             }
             if (!Character.isLetter(currentCharacter)) {
-                String lexeme = currentLexeme.append((char) currentCharacter).toString();
-                throw new LexicalException("'idClass' inválido, solo puede contener letras", lexeme, initialRow, initialColumn);
+                String lexeme = lexemeText(tokenStart) + (char) currentCharacter;
+                throw error("'idClass' inválido, solo puede contener letras", lexeme, tokenStart);
             }
-            currentLexeme.append((char) currentCharacter);
+            lexemeLength++;
+            lastCharacter = currentCharacter;
             currentCharacter = readCharacter();
         }
-        String lexeme = currentLexeme.toString();
-        if (!Character.isLetter(lexeme.charAt(lexeme.length() - 1))) {
-            throw new LexicalException("'idClass' inválido, debe terminar con una letra", lexeme, initialRow, initialColumn);
+        if (!Character.isLetter(lastCharacter)) {
+            throw error("'idClass' inválido, debe terminar con una letra", lexemeText(tokenStart), tokenStart);
         }
-        return new Token("idClass", lexeme, initialRow, initialColumn);
+        return emit(TokenKind.ID_CLASS);
     }
 
-    private Token processIdMethodAttributeOrKeyword(int initialRow, int initialColumn) {
+    private TokenKind processIdMethodAttributeOrKeyword() {
         currentCharacter = readCharacter();
         while (Character.isLetterOrDigit(currentCharacter) || currentCharacter == '_') {
-            if (currentLexeme.length() >= MAX_ID_LENGTH) {
-                String lexeme = currentLexeme.append((char) currentCharacter).toString();
-                throw new LexicalException("La longitud del 'idMetAt' excede los " + MAX_ID_LENGTH + " caracteres", lexeme, initialRow, initialColumn);
+            if (lexemeLength >= MAX_ID_LENGTH) {
+                String lexeme = lexemeText(tokenStart) + (char) currentCharacter;
+                throw error("La longitud del 'idMetAt' excede los " + MAX_ID_LENGTH + " caracteres", lexeme, tokenStart);
             }
-            currentLexeme.append((char) currentCharacter);
+            lexemeLength++;
             currentCharacter = readCharacter();
         }
-        String lexeme = currentLexeme.toString();
         if (Character.isLetterOrDigit(currentCharacter) || currentCharacter == '_') {
-            String invalidLexeme = lexeme + (char) currentCharacter;
-            throw new LexicalException("'idMetAt' inválido, contiene un símbolo no permitido", invalidLexeme, initialRow, initialColumn);
+            String invalidLexeme = lexemeText(tokenStart) + (char) currentCharacter;
+            throw error("'idMetAt' inválido, contiene un símbolo no permitido", invalidLexeme, tokenStart);
         }
-        String tokenType = KEYWORDS.contains(lexeme) ? lexeme : "idMetAt";
-        return new Token(tokenType, lexeme, initialRow, initialColumn);
+        return identifierOrKeyword();
     }
 
-    private Token processStringLiteral(int initialRow, int initialColumn) {
-        currentLexeme.setLength(0);
+    private TokenKind processStringLiteral() {
+        int contentStart = tokenStart + 1;
+        lexemeLength = 0;
         currentCharacter = readCharacter();
         while (currentCharacter != '"') {
             if (currentCharacter == -1 || currentCharacter == '\0') {
-                throw new LexicalException("String inválido, se encontró EOF o NUL", "\"" + currentLexeme.toString(), initialRow, initialColumn);
+                throw error("String inválido, se encontró EOF o NUL", "\"" + lexemeText(contentStart), tokenStart);
             }
             if (currentCharacter == '\n') {
-                throw new LexicalException("String sin cerrar, salto de línea encontrado", "\"" + currentLexeme.toString(), initialRow, initialColumn);
+                throw error("String sin cerrar, salto de línea encontrado", "\"" + lexemeText(contentStart), tokenStart);
             }
-            if (currentLexeme.length() >= MAX_STRING_LENGTH) {
-                String lexeme = currentLexeme.append((char) currentCharacter).toString();
-                throw new LexicalException("La longitud del string excede los " + MAX_STRING_LENGTH + " caracteres", "\"" + lexeme + "...", initialRow, initialColumn);
+            if (lexemeLength >= MAX_STRING_LENGTH) {
+                String lexeme = lexemeText(contentStart) + (char) currentCharacter;
+                throw error("La longitud del string excede los " + MAX_STRING_LENGTH + " caracteres", "\"" + lexeme + "...", tokenStart);
             }
-            currentLexeme.append((char) currentCharacter);
+            lexemeLength++;
+            // El contenido común se saltea de una vez, sin pasar el máximo para fallar en el mismo carácter
+            int limit = (int) Math.min(fileScanner.size(), (long) fileScanner.position() + MAX_STRING_LENGTH - lexemeLength);
+            lexemeLength += skipTo(ByteScanner.skipStringBody(source, fileScanner.position(), limit));
             currentCharacter = readCharacter();
         }
+        int contentLength = currentOffset - contentStart;
         currentCharacter = readCharacter();
-        if (currentLexeme.isEmpty()) {
-            throw new LexicalException("El string está vacío", "\"\"", initialRow, initialColumn);
+        if (lexemeLength == 0) {
+            throw error("El string está vacío", "\"\"", tokenStart);
         }
-        return new Token("StrLiteral", currentLexeme.toString(), initialRow, initialColumn);
+        return emit(TokenKind.STR_LITERAL, contentStart, contentLength);
     }
 
-    private Token processCommentOrDivision(int initialRow, int initialColumn) {
+    /**
+     * @return El operador de división, o {@code null} si se salteó un comentario.
+     */
+    private TokenKind processCommentOrDivision() {
         currentCharacter = readCharacter();
         if (currentCharacter == '/') {
-            processSingleLineComment(initialRow, initialColumn);
-            return nextToken();
+            processSingleLineComment();
+            countComment();
+            return null;
         } else if (currentCharacter == '*') {
-            processMultiLineComment(initialRow, initialColumn);
-            return nextToken();
+            processMultiLineComment();
+            countComment();
+            return null;
         } else {
-            return new Token("op_div", "/", initialRow, initialColumn);
+            return emit(TokenKind.DIV_OP);
         }
     }
 
-    private Token processEqualsOrAssign(int initialRow, int initialColumn) {
+    private TokenKind processEqualsOrAssign() {
         currentCharacter = readCharacter();
         if (currentCharacter == '=') {
-            currentLexeme.append((char) currentCharacter);
             currentCharacter = readCharacter();
-            return new Token("equalsOp", currentLexeme.toString(), initialRow, initialColumn);
+            return emit(TokenKind.EQUALS_OP);
         } else {
-            return new Token("assignOp", "=", initialRow, initialColumn);
+            return emit(TokenKind.ASSIGN_OP);
         }
     }
 
-    private Token processIntOrDoubleLiteral(int initialRow, int initialColumn) {
+    /**
+     * Reconoce un literal numérico calculando su valor a medida que lee los dígitos.
+     */
+    private TokenKind processIntOrDoubleLiteral() {
         boolean isDouble = false;
+        long value = currentCharacter - '0';
+        int fractionDigits = 0;
         currentCharacter = readCharacter();
         while (Character.isDigit(currentCharacter)) {
-            currentLexeme.append((char) currentCharacter);
+            value = NumericLiterals.accumulate(value, currentCharacter - '0');
             currentCharacter = readCharacter();
         }
         if (currentCharacter == '.') {
             isDouble = true;
-            currentLexeme.append((char) currentCharacter);
             currentCharacter = readCharacter();
             if (!Character.isDigit(currentCharacter)) {
-                throw new LexicalException("Literal doble inválido, falta la parte fraccionaria", currentLexeme.toString(), initialRow, initialColumn);
+                throw error("Literal doble inválido, falta la parte fraccionaria", lexemeText(tokenStart), tokenStart);
             }
             while (Character.isDigit(currentCharacter)) {
-                currentLexeme.append((char) currentCharacter);
+                value = NumericLiterals.accumulate(value, currentCharacter - '0');
+                fractionDigits++;
                 currentCharacter = readCharacter();
             }
             if (currentCharacter == '.') {
-                throw new LexicalException("Literal doble inválido, múltiples puntos decimales", currentLexeme.toString() + ".", initialRow, initialColumn);
+                throw error("Literal doble inválido, múltiples puntos decimales", lexemeText(tokenStart) + ".", tokenStart);
             }
         }
         if (Character.isLetter(currentCharacter)) {
-            String lexeme = currentLexeme.append((char) currentCharacter).toString();
-            throw new LexicalException("Literal numérico inválido", lexeme, initialRow, initialColumn);
+            String lexeme = lexemeText(tokenStart) + (char) currentCharacter;
+            throw error("Literal numérico inválido", lexeme, tokenStart);
+        }
+        if (isDouble) {
+            return emitDouble(NumericLiterals.toDouble(value, fractionDigits, source, tokenStart, currentOffset - tokenStart));
+        }
+        return emitInt(value);
+    }
+
+    /**
+     * Registra un 'intLiteral' con su valor, o informa que no entra en un {@code long}.
+     */
+    private TokenKind emitInt(long value) {
+        if (value == NumericLiterals.OVERFLOW) {
+            throw error("Literal entero fuera de rango, el máximo es " + Long.MAX_VALUE, lexemeText(tokenStart), tokenStart);
+        }
+        tokenValue = value;
+        return emit(TokenKind.INT_LITERAL);
+    }
+
+    /**
+     * Registra un 'doubleLiteral' con su valor, o informa que es demasiado grande para un {@code double}.
+     */
+    private TokenKind emitDouble(double value) {
+        if (Double.isInfinite(value)) {
+            throw error("Literal doble fuera de rango, el máximo es " + Double.MAX_VALUE, lexemeText(tokenStart), tokenStart);
         }
-        String tokenType = isDouble ? "doubleLiteral" : "intLiteral";
-        return new Token(tokenType, currentLexeme.toString(), initialRow, initialColumn);
+        tokenValue = Double.doubleToRawLongBits(value);
+        return emit(TokenKind.DOUBLE_LITERAL);
     }
 
-    private Token processLessOrLessEqual(int initialRow, int initialColumn) {
+    private TokenKind processLessOrLessEqual() {
         currentCharacter = readCharacter();
         if (currentCharacter == '=') {
-            currentLexeme.append((char) currentCharacter);
             currentCharacter = readCharacter();
-            return new Token("lessEqOp", currentLexeme.toString(), initialRow, initialColumn);
+            return emit(TokenKind.LESS_EQ_OP);
         } else {
-            return new Token("lessOp", "<", initialRow, initialColumn);
+            return emit(TokenKind.LESS_OP);
         }
     }
 
-    private Token processGreaterOrGreaterEqual(int initialRow, int initialColumn) {
+    private TokenKind processGreaterOrGreaterEqual() {
         currentCharacter = readCharacter();
         if (currentCharacter == '=') {
-            currentLexeme.append((char) currentCharacter);
             currentCharacter = readCharacter();
-            return new Token("greaterEqOp", currentLexeme.toString(), initialRow, initialColumn);
+            return emit(TokenKind.GREATER_EQ_OP);
         } else {
-            return new Token("greaterOp", ">", initialRow, initialColumn);
+            return emit(TokenKind.GREATER_OP);
         }
     }
 
-    private Token processAddOrIncrement(int initialRow, int initialColumn) {
+    private TokenKind processAddOrIncrement() {
         currentCharacter = readCharacter();
         if (currentCharacter == '+') {
-            currentLexeme.append((char) currentCharacter);
             currentCharacter = readCharacter();
-            return new Token("incrementOp", currentLexeme.toString(), initialRow, initialColumn);
+            return emit(TokenKind.INCREMENT_OP);
         } else {
-            return new Token("addOp", "+", initialRow, initialColumn);
+            return emit(TokenKind.ADD_OP);
         }
     }
 
-    private Token processAndOperator(int initialRow, int initialColumn) {
+    private TokenKind processAndOperator() {
         currentCharacter = readCharacter();
         if (currentCharacter == '&') {
-            currentLexeme.append((char) currentCharacter);
             currentCharacter = readCharacter();
-            return new Token("andOp", "&&", initialRow, initialColumn);
+            return emit(TokenKind.AND_OP);
         } else {
-            throw new LexicalException("Operación 'and' inválida, se esperaba '&&'", "&", initialRow, initialColumn);
+            throw error("Operación 'and' inválida, se esperaba '&&'", "&", tokenStart);
         }
     }
 
-    private Token processOrOperator(int initialRow, int initialColumn) {
+    private TokenKind processOrOperator() {
         currentCharacter = readCharacter();
         if (currentCharacter == '|') {
-            currentLexeme.append((char) currentCharacter);
             currentCharacter = readCharacter();
-            return new Token("orOp", "||", initialRow, initialColumn);
+            return emit(TokenKind.OR_OP);
         } else {
-            throw new LexicalException("Operación 'or' inválida, se esperaba '||'", "|", initialRow, initialColumn);
+            throw error("Operación 'or' inválida, se esperaba '||'", "|", tokenStart);
         }
     }
 
-    private void processSingleLineComment(int initialRow, int initialColumn) {
+    private void processSingleLineComment() {
         while (currentCharacter != '\n' && currentCharacter != -1) {
             if (currentCharacter > 255) {
-                throw new LexicalException("Comentario inválido, contiene caracteres no ASCII", String.valueOf((char) currentCharacter), row, column);
+                throw error("Comentario inválido, contiene caracteres no ASCII", String.valueOf((char) currentCharacter), currentOffset);
             }
+            skipTo(ByteScanner.skipLineComment(source, fileScanner.position(), fileScanner.size()));
             currentCharacter = readCharacter();
         }
     }
 
-    private void processMultiLineComment(int initialRow, int initialColumn) {
+    private void processMultiLineComment() {
         currentCharacter = readCharacter();
         while (true) {
             if (currentCharacter > 255) {
-                throw new LexicalException("Comentario inválido, contiene caracteres no ASCII", String.valueOf((char) currentCharacter), row, column);
+                throw error("Comentario inválido, contiene caracteres no ASCII", String.valueOf((char) currentCharacter), currentOffset);
             }
             if (currentCharacter == -1) {
-                throw new LexicalException("Comentario de varias líneas sin cerrar", "/*", initialRow, initialColumn);
+                throw error("Comentario de varias líneas sin cerrar", "/*", tokenStart);
             }
             if (currentCharacter == '*') {
                 currentCharacter = readCharacter();
@@ -304,39 +1163,20 @@ public class LexicalAnalyzer {
                     return;
                 }
             } else {
+                skipTo(ByteScanner.skipBlockComment(source, fileScanner.position(), fileScanner.size()));
                 currentCharacter = readCharacter();
             }
         }
     }
 
-    private Token processSingleCharacterToken(int initialRow, int initialColumn) {
+    private TokenKind processSingleCharacterToken() {
         char character = (char) currentCharacter;
         currentCharacter = readCharacter();
-        return switch (character) {
-            case '(', ')', '{', '}', '[', ']', ',', ';', '.', '-', '*', '!' ->
-                // Token de un solo carácter válido, no necesita una lógica compleja aquí
-                    new Token(getTokenTypeForChar(character), String.valueOf(character), initialRow, initialColumn);
-            default ->
-                // Error de símbolo, el lexema es el propio carácter no reconocido.
-                    throw new LexicalException("Símbolo no pertenece al lenguaje", String.valueOf(character), initialRow, initialColumn);
-        };
-    }
-
-    private String getTokenTypeForChar(char c) {
-        return switch (c) {
-            case '(' -> "lParen";
-            case ')' -> "rParen";
-            case '{' -> "lBrace";
-            case '}' -> "rBrace";
-            case '[' -> "lBracket";
-            case ']' -> "rBracket";
-            case ',' -> "comma";
-            case ';' -> "semicolon";
-            case '.' -> "dot";
-            case '-' -> "subOp";
-            case '*' -> "mulOp";
-            case '!' -> "notOp";
-            default -> "UNKNOWN";
-        };
+        TokenKind tokenKind = TokenKind.forSingleCharacter(character);
+        if (tokenKind == null) {
+            // Error de símbolo, el lexema es el propio carácter no reconocido.
+            throw error("Símbolo no pertenece al lenguaje", String.valueOf(character), tokenStart);
+        }
+        return emit(tokenKind);
     }
-}
\ No newline at end of file
+}
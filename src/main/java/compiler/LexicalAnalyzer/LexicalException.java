@@ -3,6 +3,8 @@ package compiler.LexicalAnalyzer;
 /**
  * Excepción personalizada para errores léxicos.
  * MODIFICADO: Almacena el lexema inválido y formatea el mensaje de error de salida.
+ * No guarda la pila de llamadas: la posición del error ya está en la fila y la columna, y así
+ * crearla es barato cuando el analizador registra muchos errores en modo de recuperación.
  */
 public class LexicalException extends RuntimeException {
 
@@ -14,7 +16,7 @@ public class LexicalException extends RuntimeException {
     public LexicalException(String message, String invalidLexeme, int row, int column) {
         // Pasamos un mensaje simple al constructor de la superclase.
         // El mensaje formateado se generará en el método getMessage().
-        super(message);
+        super(message, null, false, false);
         this.errorMessage = message;
         this.invalidLexeme = invalidLexeme;
         this.row = row;
@@ -35,6 +37,13 @@ public class LexicalException extends RuntimeException {
         );
     }
 
+    /**
+     * Descripción del error sin el formato de salida, por ejemplo {@code "String sin cerrar, salto de línea encontrado"}.
+     */
+    public String getDescription() {
+        return errorMessage;
+    }
+
     public int getRow() {
         return row;
     }
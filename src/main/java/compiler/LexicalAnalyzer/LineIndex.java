@@ -0,0 +1,188 @@
+package compiler.LexicalAnalyzer;
+
+import compiler.FileScanner;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice de los comienzos de línea de un código fuente.
+ * Permite obtener la fila y la columna de cualquier posición sin recorrer el archivo desde el principio,
+ * así que el analizador solo sigue posiciones en bytes y las filas y columnas se calculan a pedido.
+ */
+final class LineIndex {
+
+    private ByteBuffer source;
+    private int[] lineStarts;
+    private int lineCount;
+
+    private LineIndex(ByteBuffer source, int[] lineStarts, int lineCount) {
+        this.source = source;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Posiciones de los saltos de línea dentro de {@code [from, to)}, en orden.
+     */
+    static int[] findNewlines(ByteBuffer source, int from, int to) {
+        int[] newlines = new int[64];
+        int count = 0;
+        for (int i = ByteScanner.nextNewline(source, from, to); i < to; i = ByteScanner.nextNewline(source, i + 1, to)) {
+            if (count == newlines.length) {
+                newlines = Arrays.copyOf(newlines, count * 2);
+            }
+            newlines[count++] = i;
+        }
+        return Arrays.copyOf(newlines, count);
+    }
+
+    /**
+     * Arma el índice a partir de los saltos de línea de tramos consecutivos del archivo.
+     */
+    static LineIndex fromNewlines(ByteBuffer source, List<int[]> newlinesPerRange) {
+        int total = 1;
+        for (int[] newlines : newlinesPerRange) {
+            total += newlines.length;
+        }
+        int[] lineStarts = new int[total];
+        int count = 1;
+        for (int[] newlines : newlinesPerRange) {
+            for (int newline : newlines) {
+                lineStarts[count++] = newline + 1;
+            }
+        }
+        return new LineIndex(source, lineStarts, count);
+    }
+
+    static LineIndex build(ByteBuffer source, int size) {
+        return fromNewlines(source, List.of(findNewlines(source, 0, size)));
+    }
+
+    /**
+     * Corrige el índice después de reemplazar {@code [start, oldEnd)} por {@code [start, newEnd)} en
+     * {@code newSource}: se quitan los comienzos de línea del tramo borrado, se buscan los del tramo
+     * insertado y se desplazan los siguientes, sin volver a recorrer el resto del archivo.
+     * Los {@link Tracker} creados antes del cambio dejan de ser válidos.
+     */
+    void applyEdit(ByteBuffer newSource, int start, int oldEnd, int newEnd) {
+        int from = firstStartAfter(start);
+        int to = firstStartAfter(oldEnd);
+        int[] inserted = findNewlines(newSource, start, newEnd);
+        int newCount = lineCount - (to - from) + inserted.length;
+        if (newCount > lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, Math.max(newCount, lineStarts.length + (lineStarts.length >> 1)));
+        }
+        System.arraycopy(lineStarts, to, lineStarts, from + inserted.length, lineCount - to);
+        for (int i = 0; i < inserted.length; i++) {
+            lineStarts[from + i] = inserted[i] + 1;
+        }
+        int delta = newEnd - oldEnd;
+        if (delta != 0) {
+            for (int i = from + inserted.length; i < newCount; i++) {
+                lineStarts[i] += delta;
+            }
+        }
+        lineCount = newCount;
+        source = newSource;
+    }
+
+    /**
+     * Índice del primer comienzo de línea mayor que {@code offset}.
+     */
+    private int firstStartAfter(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset + 1);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Fila (desde 1) del carácter en {@code offset}.
+     */
+    int row(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Columna (desde 1) del carácter en {@code offset}, contando caracteres y no bytes.
+     */
+    int column(int offset) {
+        return characters(lineStarts[row(offset) - 1], offset) + 1;
+    }
+
+    /**
+     * Caracteres entre dos posiciones de la misma línea, contados como los decodifica el analizador.
+     */
+    private int characters(int from, int to) {
+        int nonAscii = ByteScanner.nextNonAscii(source, from, to);
+        if (nonAscii == to) {
+            return to - from;
+        }
+        return nonAscii - from + FileScanner.countCharacters(source, nonAscii, to);
+    }
+
+    Tracker tracker() {
+        return new Tracker();
+    }
+
+    /**
+     * Resuelve posiciones que se piden en orden creciente, como las de los tokens al recorrerlos.
+     * Al entrar en una línea comprueba de una vez si es toda ASCII: en ese caso la columna es la
+     * distancia en bytes desde su comienzo, y si no, solo se cuentan los caracteres desde la posición
+     * anterior, así que una línea con muchos tokens no se recorre de nuevo para cada uno.
+     */
+    final class Tracker {
+        /**
+         * Líneas que se recorren una por una antes de buscar la fila con una búsqueda binaria.
+         */
+        private static final int LINEAR_STEPS = 8;
+
+        private int offset = -1;
+        private int row;
+        private int column;
+        private int lineStart;
+        private int nextLineStart;
+        private boolean ascii;
+
+        private Tracker() {
+        }
+
+        void moveTo(int target) {
+            if (target == offset) {
+                return;
+            }
+            if (target > offset && offset >= 0 && target < nextLineStart) {
+                column = ascii ? target - lineStart + 1 : column + characters(offset, target);
+                offset = target;
+                return;
+            }
+            if (target > offset && offset >= 0) {
+                // Al avanzar el token suele estar unas pocas líneas más adelante
+                int limit = Math.min(lineCount, row + LINEAR_STEPS);
+                while (row < limit && lineStarts[row] <= target) {
+                    row++;
+                }
+                if (row == limit && row < lineCount && lineStarts[row] <= target) {
+                    row = LineIndex.this.row(target);
+                }
+            } else {
+                row = LineIndex.this.row(target);
+            }
+            lineStart = lineStarts[row - 1];
+            nextLineStart = row < lineCount ? lineStarts[row] : Integer.MAX_VALUE;
+            int lineEnd = Math.min(nextLineStart, source.limit());
+            ascii = ByteScanner.nextNonAscii(source, lineStart, lineEnd) == lineEnd;
+            column = ascii ? target - lineStart + 1 : characters(lineStart, target) + 1;
+            offset = target;
+        }
+
+        int row() {
+            return row;
+        }
+
+        int column() {
+            return column;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package compiler.LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cálculo del valor de los literales numéricos a partir de sus dígitos, sin armar el lexema.
+ * Los enteros se acumulan en un {@code long} exacto; como los literales no tienen signo, un
+ * desborde se marca con -1 y queda así hasta el final. Los dobles se convierten con el camino
+ * rápido de Clinger cuando el resultado es exacto y si no con {@link Double#parseDouble(String)},
+ * así que siempre quedan correctamente redondeados.
+ */
+final class NumericLiterals {
+
+    /**
+     * Valor acumulado de un literal entero que no entra en un {@code long}.
+     */
+    static final long OVERFLOW = -1;
+
+    private static final long LIMIT = Long.MAX_VALUE / 10;
+    private static final int LAST_DIGIT_LIMIT = (int) (Long.MAX_VALUE % 10);
+
+    /**
+     * Mantisa máxima que un {@code double} representa exactamente.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Potencias de diez que un {@code double} representa exactamente.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumericLiterals() {
+    }
+
+    /**
+     * Agrega un dígito al valor acumulado.
+     * @return El nuevo valor, o {@link #OVERFLOW} si ya no entra en un {@code long}.
+     */
+    static long accumulate(long value, int digit) {
+        if (value < 0 || value > LIMIT || (value == LIMIT && digit > LAST_DIGIT_LIMIT)) {
+            return OVERFLOW;
+        }
+        return value * 10 + digit;
+    }
+
+    /**
+     * Valor de un literal doble cuyos dígitos, sin el punto, acumulan {@code mantissa}, con
+     * {@code fractionDigits} de ellos después del punto. El lexema completo está en
+     * {@code [offset, offset + length)} de {@code source}; solo se decodifica si el camino rápido no alcanza.
+     */
+    static double toDouble(long mantissa, int fractionDigits, ByteBuffer source, int offset, int length) {
+        if (mantissa >= 0 && mantissa <= MAX_EXACT_MANTISSA && fractionDigits < POWERS_OF_TEN.length) {
+            // Dividendo y divisor son exactos, así que la única división redondea correctamente
+            return mantissa / POWERS_OF_TEN[fractionDigits];
+        }
+        return Double.parseDouble(Token.decode(source, offset, length));
+    }
+}
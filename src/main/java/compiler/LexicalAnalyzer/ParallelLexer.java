@@ -0,0 +1,366 @@
+package compiler.LexicalAnalyzer;
+
+import compiler.FileScanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Análisis léxico de un único archivo grande dividiéndolo en partes que se analizan en paralelo.
+ * <p>
+ * Cada parte se analiza de forma especulativa suponiendo que empieza fuera de todo token. Si esa
+ * suposición produce un error (la parte empezaba dentro de un comentario o de un string), se
+ * prueban también los otros estados posibles: después del siguiente salto de línea y después del
+ * siguiente cierre de comentario. Luego se recorren las partes en orden: el analizador está en el
+ * mismo estado en dos análisis que terminan un token en la misma posición, así que en cuanto el
+ * análisis real coincide con una especulación se adoptan sus tokens. Si no coincide, se sigue
+ * analizando secuencialmente hasta sincronizar, por lo que el resultado (tokens, posiciones y
+ * error) es siempre el mismo que el del análisis secuencial.
+ * <p>
+ * Las métricas y los tokens largos se informan solo para los tokens que quedan en el resultado: cada
+ * especulación cuenta sus tokens y al adoptarla se descuentan los que quedan antes de la sincronización.
+ */
+public final class ParallelLexer {
+
+    /**
+     * Tamaño mínimo de cada parte; por debajo de este tamaño no compensa dividir.
+     */
+    public static final int MINIMUM_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Distancia máxima que se avanza el comienzo de una parte buscando un salto de línea.
+     */
+    private static final int LINE_ALIGNMENT_WINDOW = 64 * 1024;
+
+    private ParallelLexer() {
+    }
+
+    public static TokenBuffer tokenize(String filePath) throws IOException {
+        return tokenize(filePath, LexicalAnalyzer.Engine.CLASSIC, ForkJoinPool.commonPool());
+    }
+
+    public static TokenBuffer tokenize(String filePath, LexicalAnalyzer.Engine engine, ForkJoinPool pool) throws IOException {
+        return tokenize(LexicalAnalyzer.openSource(filePath), engine, pool);
+    }
+
+    static TokenBuffer tokenize(FileScanner fileScanner, LexicalAnalyzer.Engine engine, ForkJoinPool pool) {
+        // Con un solo hilo dividir solo agrega trabajo
+        int chunkSize = pool.getParallelism() > 1
+                ? Math.max(MINIMUM_CHUNK_SIZE, fileScanner.size() / (pool.getParallelism() * 4))
+                : Integer.MAX_VALUE;
+        return tokenize(fileScanner, engine, pool, chunkSize);
+    }
+
+    static TokenBuffer tokenize(FileScanner fileScanner, LexicalAnalyzer.Engine engine, ForkJoinPool pool, int chunkSize) {
+        int size = fileScanner.size();
+        ByteBuffer source = fileScanner.buffer();
+        int[] boundaries = chunkBoundaries(source, size, chunkSize);
+        int chunks = boundaries.length - 1;
+        if (chunks == 1) {
+            return new LexicalAnalyzer(fileScanner, engine, 0, null).tokenize();
+        }
+
+        List<ForkJoinTask<int[]>> newlineTasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = boundaries[i];
+            int to = boundaries[i + 1];
+            newlineTasks.add(ForkJoinTask.adapt(() -> LineIndex.findNewlines(source, from, to)));
+        }
+        invokeAll(pool, newlineTasks);
+        List<int[]> newlines = new ArrayList<>(chunks);
+        for (ForkJoinTask<int[]> task : newlineTasks) {
+            newlines.add(task.join());
+        }
+        LineIndex lines = LineIndex.fromNewlines(source, newlines);
+
+        List<ForkJoinTask<List<Speculation>>> chunkTasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int chunk = i;
+            chunkTasks.add(ForkJoinTask.adapt(() -> speculateChunk(fileScanner, engine, lines, boundaries, chunk)));
+        }
+        invokeAll(pool, chunkTasks);
+        List<List<Speculation>> speculations = new ArrayList<>(chunks);
+        int estimatedTokens = 0;
+        for (ForkJoinTask<List<Speculation>> task : chunkTasks) {
+            List<Speculation> chunkSpeculations = task.join();
+            speculations.add(chunkSpeculations);
+            estimatedTokens += chunkSpeculations.get(0).tokens.size();
+        }
+        TokenBuffer result = new TokenBuffer(source, estimatedTokens);
+        result.useLines(lines);
+        Counts counts = new Counts();
+        try {
+            reconcile(fileScanner, engine, lines, boundaries, speculations, result, counts);
+        } catch (LexicalException e) {
+            counts.exceptions = 1;
+            throw e;
+        } finally {
+            counts.publish(lines);
+        }
+        return result;
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<? extends ForkJoinTask<?>> tasks) {
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    /**
+     * Divide el archivo en partes de alrededor de {@code chunkSize} bytes. Cada parte empieza, si es
+     * posible, al comienzo de una línea y nunca en medio de un carácter de UTF-8.
+     * @return Los comienzos de cada parte seguidos del tamaño del archivo.
+     */
+    static int[] chunkBoundaries(ByteBuffer source, int size, int chunkSize) {
+        int window = Math.min(LINE_ALIGNMENT_WINDOW, chunkSize / 2);
+        int[] boundaries = new int[16];
+        int count = 1;
+        for (long nominal = chunkSize; nominal < size; nominal += chunkSize) {
+            int boundary = alignToLine(source, (int) nominal, size, window);
+            if (boundary > boundaries[count - 1] && boundary < size) {
+                if (count + 1 >= boundaries.length) {
+                    boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+                }
+                boundaries[count++] = boundary;
+            }
+        }
+        boundaries[count++] = size;
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    private static int alignToLine(ByteBuffer source, int offset, int size, int window) {
+        int limit = Math.min(size, offset + window);
+        for (int i = offset; i < limit; i++) {
+            if (source.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        while (offset < size && (source.get(offset) & 0xC0) == 0x80) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static List<Speculation> speculateChunk(FileScanner fileScanner, LexicalAnalyzer.Engine engine, LineIndex lines,
+                                                    int[] boundaries, int chunk) {
+        int start = boundaries[chunk];
+        int limit = boundaries[chunk + 1];
+        List<Speculation> speculations = new ArrayList<>(3);
+        Speculation outsideTokens = speculate(fileScanner, engine, lines, start, limit);
+        speculations.add(outsideTokens);
+        if (outsideTokens.error != null && chunk > 0) {
+            // Probablemente la parte empieza dentro de un string o de un comentario
+            int afterNewline = indexOf(fileScanner, "\n", start, limit);
+            if (afterNewline > start) {
+                speculations.add(speculate(fileScanner, engine, lines, afterNewline, limit));
+            }
+            int afterComment = indexOf(fileScanner, "*/", start, limit);
+            if (afterComment > start && afterComment != afterNewline) {
+                speculations.add(speculate(fileScanner, engine, lines, afterComment, limit));
+            }
+        }
+        return speculations;
+    }
+
+    /**
+     * Posición siguiente a la primera aparición de {@code text} en {@code [from, to)}, o -1.
+     */
+    private static int indexOf(FileScanner fileScanner, String text, int from, int to) {
+        int last = to - text.length();
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < text.length() && fileScanner.byteAt(i + j) == text.charAt(j)) {
+                j++;
+            }
+            if (j == text.length()) {
+                return i + text.length();
+            }
+        }
+        return -1;
+    }
+
+    private static Speculation speculate(FileScanner fileScanner, LexicalAnalyzer.Engine engine, LineIndex lines,
+                                         int start, int limit) {
+        Speculation speculation = new Speculation(fileScanner.buffer(), start, limit - start);
+        try {
+            LexicalAnalyzer lexer = new LexicalAnalyzer(fileScanner.duplicate(), engine, start, lines);
+            lexer.disableMetrics(speculation.slowTokens);
+            int end = start;
+            while (end < limit) {
+                TokenKind kind = lexer.scanInto(speculation.tokens);
+                speculation.count(kind, lexer.lastCommentBytes());
+                end = lexer.position();
+                speculation.addEnd(end);
+                if (kind == TokenKind.EOF) {
+                    speculation.reachedEof = true;
+                    break;
+                }
+            }
+        } catch (LexicalException e) {
+            speculation.error = e;
+        }
+        return speculation;
+    }
+
+    private static TokenBuffer reconcile(FileScanner fileScanner, LexicalAnalyzer.Engine engine, LineIndex lines, int[] boundaries,
+                                         List<List<Speculation>> speculations, TokenBuffer result, Counts counts) {
+        Speculation adopted = speculations.get(0).get(0);
+        int from = 0;
+        LexicalAnalyzer sequential = null;
+        int end;
+        while (true) {
+            if (adopted != null) {
+                result.addRange(adopted.tokens, from, adopted.tokens.size());
+                adopted.countFrom(from, counts);
+                if (adopted.error != null) {
+                    throw adopted.error;
+                }
+                if (adopted.reachedEof) {
+                    return result;
+                }
+                end = adopted.lastEnd();
+                adopted = null;
+                sequential = null;
+            } else {
+                end = sequential.position();
+            }
+
+            int chunk = chunkOf(boundaries, end);
+            if (chunk < speculations.size()) {
+                for (Speculation speculation : speculations.get(chunk)) {
+                    int index = speculation.syncIndex(end);
+                    if (index >= 0 && (index < speculation.tokens.size() || speculation.error != null)) {
+                        adopted = speculation;
+                        from = index;
+                        break;
+                    }
+                }
+            }
+            if (adopted == null) {
+                if (sequential == null) {
+                    sequential = new LexicalAnalyzer(fileScanner.duplicate(), engine, end, lines);
+                    sequential.disableMetrics(counts.slowTokens);
+                }
+                TokenKind kind = sequential.scanInto(result);
+                int last = result.size() - 1;
+                counts.add(kind, result.start(last) - end, sequential.lastCommentBytes());
+                if (kind == TokenKind.EOF) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    private static int chunkOf(int[] boundaries, int offset) {
+        int index = Arrays.binarySearch(boundaries, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Contadores de los tokens de un análisis, que se agregan a {@link LexerMetrics} junto con sus
+     * tokens largos.
+     */
+    private static final class Counts {
+        final long[] kindCounts = new long[TokenKind.values().length];
+        long commentBytes;
+        long whitespaceBytes;
+        long exceptions;
+        final List<SlowTokenEvent.Held> slowTokens = new ArrayList<>();
+
+        /**
+         * @param gap Bytes entre el fin del token anterior y el comienzo de este.
+         * @param comments Bytes de comentarios dentro de {@code gap}.
+         */
+        void add(TokenKind kind, int gap, int comments) {
+            kindCounts[kind.ordinal()]++;
+            commentBytes += comments;
+            whitespaceBytes += gap - comments;
+        }
+
+        void publish(LineIndex lines) {
+            LexerMetrics.record(kindCounts, commentBytes, whitespaceBytes, exceptions);
+            for (SlowTokenEvent.Held token : slowTokens) {
+                SlowTokenEvent.report(lines, token);
+            }
+        }
+    }
+
+    /**
+     * Resultado del análisis especulativo de una parte.
+     * {@code ends[0]} es la posición de inicio y {@code ends[i]} el fin del token {@code i - 1}:
+     * son las posiciones desde las que el análisis real puede continuar con estos tokens.
+     */
+    private static final class Speculation {
+        final TokenBuffer tokens;
+        private int[] ends;
+        private int endCount;
+        /** Bytes de comentarios antes de cada token. */
+        private int[] comments;
+        private final Counts counts = new Counts();
+        final List<SlowTokenEvent.Held> slowTokens = counts.slowTokens;
+        LexicalException error;
+        boolean reachedEof;
+
+        Speculation(ByteBuffer source, int start, int expectedBytes) {
+            this.tokens = new TokenBuffer(source, TokenBuffer.estimateCapacity(expectedBytes));
+            this.ends = new int[Math.max(16, TokenBuffer.estimateCapacity(expectedBytes))];
+            this.ends[0] = start;
+            this.endCount = 1;
+            this.comments = new int[ends.length];
+        }
+
+        /**
+         * Cuenta el último token agregado, antes de agregar su fin.
+         */
+        void count(TokenKind kind, int commentBytes) {
+            int index = endCount - 1;
+            if (index == comments.length) {
+                comments = Arrays.copyOf(comments, index + (index >> 1));
+            }
+            comments[index] = commentBytes;
+            counts.add(kind, tokens.start(index) - ends[index], commentBytes);
+        }
+
+        /**
+         * Agrega a {@code total} los contadores de los tokens desde {@code from}, descontando de los de
+         * la especulación los anteriores, que suelen ser pocos.
+         */
+        void countFrom(int from, Counts total) {
+            for (int i = 0; i < total.kindCounts.length; i++) {
+                total.kindCounts[i] += counts.kindCounts[i];
+            }
+            total.commentBytes += counts.commentBytes;
+            total.whitespaceBytes += counts.whitespaceBytes;
+            for (int i = 0; i < from; i++) {
+                total.kindCounts[tokens.kind(i).ordinal()]--;
+                total.commentBytes -= comments[i];
+                total.whitespaceBytes -= tokens.start(i) - ends[i] - comments[i];
+            }
+            int keptFrom = ends[from];
+            for (SlowTokenEvent.Held token : slowTokens) {
+                if (token.offset() >= keptFrom) {
+                    total.slowTokens.add(token);
+                }
+            }
+        }
+
+        void addEnd(int end) {
+            if (endCount == ends.length) {
+                ends = Arrays.copyOf(ends, endCount + (endCount >> 1));
+            }
+            ends[endCount++] = end;
+        }
+
+        int lastEnd() {
+            return ends[endCount - 1];
+        }
+
+        int syncIndex(int offset) {
+            int index = Arrays.binarySearch(ends, 0, endCount, offset);
+            return index >= 0 ? index : -1;
+        }
+    }
+}
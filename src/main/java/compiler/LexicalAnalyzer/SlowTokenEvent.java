@@ -0,0 +1,66 @@
+package compiler.LexicalAnalyzer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento de JDK Flight Recorder para tokens y comentarios de al menos
+ * {@link LexicalAnalyzer#SLOW_TOKEN_LENGTH} bytes, como strings cerca de
+ * {@link LexicalAnalyzer#MAX_STRING_LENGTH} o comentarios muy largos: su costo crece con la longitud.
+ * Es instantáneo, para no medir el tiempo de cada token.
+ */
+@Name("compiler.SlowToken")
+@Label("Token largo")
+@Category({"TinyS", "Análisis léxico"})
+@Description("Token o comentario cuya longitud lo hace costoso de analizar")
+public class SlowTokenEvent extends Event {
+
+    @Label("Tipo")
+    String kind;
+
+    @Label("Longitud")
+    @DataAmount
+    int length;
+
+    @Label("Línea")
+    int row;
+
+    @Label("Columna")
+    int column;
+
+    /**
+     * La fila y la columna del token que empieza en {@code offset} solo se calculan si el evento está activo.
+     */
+    static void report(LexicalAnalyzer lexer, String kind, int length, int offset) {
+        SlowTokenEvent event = new SlowTokenEvent();
+        if (event.isEnabled()) {
+            event.kind = kind;
+            event.length = length;
+            event.row = lexer.row(offset);
+            event.column = lexer.column(offset);
+            event.commit();
+        }
+    }
+
+    /**
+     * Token largo de un análisis cuyos tokens pueden descartarse: se guarda y se informa con
+     * {@link #report(LineIndex, Held)} solo si se conserva.
+     */
+    record Held(String kind, int length, int offset) {
+    }
+
+    static void report(LineIndex lines, Held token) {
+        SlowTokenEvent event = new SlowTokenEvent();
+        if (event.isEnabled()) {
+            event.kind = token.kind();
+            event.length = token.length();
+            event.row = lines.row(token.offset());
+            event.column = lines.column(token.offset());
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package compiler.LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tabla de símbolos que guarda una sola copia de cada identificador y string literal y le asigna un
+ * número consecutivo desde 0. Los tokens con el mismo texto reciben el mismo número, así que las
+ * etapas siguientes pueden comparar identificadores como enteros.
+ * <p>
+ * Los textos se guardan como bytes en un único arreglo y el String de cada símbolo se crea una sola
+ * vez, la primera vez que se pide. Esta tabla es para un solo hilo; la de {@link #concurrent()} se
+ * puede compartir entre varios analizadores que trabajan en paralelo.
+ */
+public class SymbolTable {
+
+    /**
+     * Símbolo de los tokens que no se guardan en la tabla.
+     */
+    public static final int NO_SYMBOL = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] text;
+    private int textSize;
+    private int[] starts;
+    private int[] lengths;
+    private int[] hashes;
+    private String[] names;
+    private int size;
+    /**
+     * Tabla hash de direccionamiento abierto; cada posición guarda el símbolo más uno, o 0 si está libre.
+     */
+    private int[] slots;
+
+    public SymbolTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    SymbolTable(int initialCapacity) {
+        this.text = new byte[initialCapacity * 8];
+        this.starts = new int[initialCapacity];
+        this.lengths = new int[initialCapacity];
+        this.hashes = new int[initialCapacity];
+        this.names = new String[initialCapacity];
+        this.slots = new int[initialCapacity * 2];
+    }
+
+    /**
+     * Tabla que se puede compartir entre varios hilos, por ejemplo para todos los archivos de un lote.
+     * Buscar un símbolo que ya está no toma ningún lock; ver {@link ConcurrentSymbolTable}.
+     */
+    public static SymbolTable concurrent() {
+        return new ConcurrentSymbolTable();
+    }
+
+    /**
+     * Devuelve el símbolo de los {@code length} bytes desde {@code offset}, agregándolo si es nuevo.
+     */
+    public int intern(ByteBuffer source, int offset, int length) {
+        int hash = hash(source, offset, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int symbol = slots[slot] - 1;
+            if (hashes[symbol] == hash && sameText(symbol, source, offset, length)) {
+                return symbol;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(source, offset, length, hash, slot);
+    }
+
+    private int add(ByteBuffer source, int offset, int length, int hash, int slot) {
+        if (size == starts.length) {
+            int capacity = size + (size >> 1);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        if (textSize + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(textSize + length, text.length + (text.length >> 1)));
+        }
+        source.get(offset, text, textSize, length);
+        int symbol = size++;
+        starts[symbol] = textSize;
+        lengths[symbol] = length;
+        hashes[symbol] = hash;
+        textSize += length;
+        slots[slot] = symbol + 1;
+        // Se mantiene la tabla hash a lo sumo a la mitad de su capacidad
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int symbol = 0; symbol < size; symbol++) {
+            int slot = hashes[symbol] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = symbol + 1;
+        }
+    }
+
+    private boolean sameText(int symbol, ByteBuffer source, int offset, int length) {
+        if (lengths[symbol] != length) {
+            return false;
+        }
+        int start = starts[symbol];
+        for (int i = 0; i < length; i++) {
+            if (text[start + i] != source.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a sobre los bytes, mezclado al final para que los bits bajos sirvan como índice.
+     */
+    static int hash(ByteBuffer source, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ source.get(offset + i)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Texto del símbolo. Siempre devuelve la misma instancia de String para el mismo símbolo.
+     */
+    public String name(int symbol) {
+        if (symbol < 0 || symbol >= size) {
+            throw new IndexOutOfBoundsException("Símbolo inexistente: " + symbol);
+        }
+        String name = names[symbol];
+        if (name == null) {
+            name = new String(text, starts[symbol], lengths[symbol], StandardCharsets.UTF_8);
+            names[symbol] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Cantidad de símbolos distintos guardados.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isThreadSafe() {
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package compiler.LexicalAnalyzer;
+
+/**
+ * Cambio sobre un código fuente: se reemplazan {@code removedLength} bytes desde {@code offset}
+ * por {@code insertedText}. Las posiciones son en bytes, igual que las de los tokens.
+ */
+public record TextEdit(int offset, int removedLength, String insertedText) {
+
+    public TextEdit {
+        if (offset < 0 || removedLength < 0) {
+            throw new IllegalArgumentException("Posición o longitud negativa: " + offset + ", " + removedLength);
+        }
+        if (insertedText == null) {
+            insertedText = "";
+        }
+    }
+
+    public static TextEdit insert(int offset, String text) {
+        return new TextEdit(offset, 0, text);
+    }
+
+    public static TextEdit delete(int offset, int length) {
+        return new TextEdit(offset, length, "");
+    }
+}
@@ -1,33 +1,164 @@
 package compiler.LexicalAnalyzer;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Token reconocido por el analizador léxico.
+ * El lexema no se copia al reconocer el token: se guarda su posición dentro del código fuente
+ * y se decodifica la primera vez que se pide. Los tokens de lexema fijo usan el de su {@link TokenKind}.
+ */
 public class Token {
 
-    private String token;
+    private final TokenKind kind;
+    private final ByteBuffer source;
+    private final int offset;
+    private final int length;
+    private final int row;
+    private final int column;
+    private final int symbol;
+    private final long value;
     private String lexeme;
-    private int row;
-    private int column;
+    private Trivia leadingTrivia;
+    private Trivia trailingTrivia;
+
+    /**
+     * Token cuyo lexema es el fijo de su tipo, ubicado en {@code offset}.
+     */
+    public Token(TokenKind kind, int offset, int row, int column) {
+        this(kind, null, offset, kind.getFixedLexeme().length(), kind.getFixedLexeme(), row, column, SymbolTable.NO_SYMBOL, 0);
+    }
+
+    /**
+     * Token cuyo lexema son los {@code length} bytes del código fuente a partir de {@code offset}.
+     */
+    public Token(TokenKind kind, ByteBuffer source, int offset, int length, int row, int column) {
+        this(kind, source, offset, length, null, row, column, SymbolTable.NO_SYMBOL, 0);
+    }
+
+    /**
+     * Token guardado en una tabla de símbolos; su lexema es la copia compartida de la tabla.
+     */
+    public Token(TokenKind kind, int offset, int length, int row, int column, SymbolTable symbols, int symbol) {
+        this(kind, null, offset, length, symbols.name(symbol), row, column, symbol, 0);
+    }
 
+    /**
+     * Literal numérico con su valor ya calculado: el {@code long} de un 'intLiteral' o los bits
+     * ({@link Double#doubleToRawLongBits(double)}) de un 'doubleLiteral'.
+     */
+    public Token(TokenKind kind, ByteBuffer source, int offset, int length, int row, int column, long value) {
+        this(kind, source, offset, length, null, row, column, SymbolTable.NO_SYMBOL, value);
+    }
+
+    private Token(TokenKind kind, ByteBuffer source, int offset, int length, String lexeme, int row, int column, int symbol, long value) {
+        this.kind = kind;
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.lexeme = lexeme;
+        this.row = row;
+        this.column = column;
+        this.symbol = symbol;
+        this.value = value;
+    }
 
-    public Token(String s, String s1, int initialRow, int initialColumn) {
-        this.token = s;
-        this.lexeme = s1;
-        this.row = initialRow;
-        this.column = initialColumn;
+    public TokenKind getKind() {
+        return kind;
     }
 
-    public Object getToken() {
-        return token;
+    /**
+     * Nombre del tipo de token, por ejemplo {@code "lParen"}.
+     */
+    public String getToken() {
+        return kind.getName();
     }
 
-    public Object getLexeme() {
+    public String getLexeme() {
+        if (lexeme == null) {
+            lexeme = decode(source, offset, length);
+        }
         return lexeme;
     }
 
-    public Object getRow() {
+    /**
+     * Posición del lexema dentro del código fuente, en bytes.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getRow() {
         return row;
     }
 
-    public Object getColumn() {
+    public int getColumn() {
         return column;
     }
+
+    /**
+     * Número del lexema en la tabla de símbolos del analizador, o {@link SymbolTable#NO_SYMBOL}.
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Valor de un 'intLiteral', calculado por el analizador sin volver a leer el lexema.
+     * @throws IllegalStateException Si el token no es un 'intLiteral'.
+     */
+    public long getIntValue() {
+        if (kind != TokenKind.INT_LITERAL) {
+            throw new IllegalStateException("El token '" + kind.getName() + "' no es un 'intLiteral'");
+        }
+        return value;
+    }
+
+    /**
+     * Valor de un 'doubleLiteral', o el de un 'intLiteral' convertido a {@code double}.
+     * @throws IllegalStateException Si el token no es un literal numérico.
+     */
+    public double getDoubleValue() {
+        if (kind == TokenKind.INT_LITERAL) {
+            return value;
+        }
+        if (kind != TokenKind.DOUBLE_LITERAL) {
+            throw new IllegalStateException("El token '" + kind.getName() + "' no es un literal numérico");
+        }
+        return Double.longBitsToDouble(value);
+    }
+
+    /**
+     * Espacios y comentarios anteriores al token que no son trivia final del token previo,
+     * o {@code null} si el analizador no conserva la trivia.
+     */
+    public Trivia getLeadingTrivia() {
+        return leadingTrivia;
+    }
+
+    /**
+     * Espacios y comentarios que siguen al token hasta el fin de su línea, salto de línea incluido,
+     * o {@code null} si el analizador no conserva la trivia.
+     */
+    public Trivia getTrailingTrivia() {
+        return trailingTrivia;
+    }
+
+    void attachTrivia(Trivia leading, Trivia trailing) {
+        this.leadingTrivia = leading;
+        this.trailingTrivia = trailing;
+    }
+
+    static String decode(ByteBuffer source, int offset, int length) {
+        if (source.hasArray()) {
+            return new String(source.array(), source.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        source.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,558 @@
+package compiler.LexicalAnalyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Secuencia de tokens de un archivo guardada en arreglos primitivos paralelos
+ * (tipo, posición y longitud), unos 9 bytes por token, más el valor de los literales numéricos, que el
+ * analizador calcula al leerlos. El arreglo de valores solo se crea cuando aparece el primer literal.
+ * Se recorre sin crear objetos mediante un {@link Cursor}; los lexemas se decodifican solo si se piden.
+ * Las filas y columnas no se guardan: se calculan a pedido con un índice de comienzos de línea que se
+ * arma la primera vez que se necesita.
+ * Si se crea con una {@link SymbolTable}, guarda además el símbolo de cada token y sus lexemas son los de la tabla.
+ */
+public class TokenBuffer implements TokenSink {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    /**
+     * Bytes que se copian de una vez entre los arreglos y un canal al guardar o leer tokens.
+     */
+    private static final int IO_BLOCK_SIZE = 64 * 1024;
+
+    private ByteBuffer source;
+    private final SymbolTable symbolTable;
+    private byte[] kinds;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] symbols;
+    /** Valor de cada literal numérico, como lo entrega {@link TokenSink}, o {@code null} si no hay ninguno. */
+    private long[] values;
+    private int size;
+    private LineIndex lines;
+
+    public TokenBuffer(ByteBuffer source) {
+        this(source, MINIMUM_CAPACITY);
+    }
+
+    public TokenBuffer(ByteBuffer source, int initialCapacity) {
+        this(source, initialCapacity, null);
+    }
+
+    public TokenBuffer(ByteBuffer source, int initialCapacity, SymbolTable symbolTable) {
+        int capacity = Math.max(initialCapacity, MINIMUM_CAPACITY);
+        this.source = source;
+        this.symbolTable = symbolTable;
+        this.symbols = symbolTable != null ? new int[capacity] : null;
+        this.kinds = new byte[capacity];
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    private TokenBuffer(ByteBuffer source, byte[] kinds, int[] offsets, int[] lengths, long[] values) {
+        this.source = source;
+        this.symbolTable = null;
+        this.symbols = null;
+        this.kinds = kinds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.values = values;
+        this.size = kinds.length;
+    }
+
+    /**
+     * Capacidad inicial razonable para un archivo de {@code sourceSize} bytes.
+     */
+    static int estimateCapacity(int sourceSize) {
+        return sourceSize >> 3;
+    }
+
+    /**
+     * @param value El valor del literal numérico, como en {@link TokenSink#accept}.
+     */
+    public void add(TokenKind kind, int offset, int length, int symbol, long value) {
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = (byte) kind.ordinal();
+        offsets[size] = offset;
+        lengths[size] = length;
+        if (symbols != null) {
+            symbols[size] = symbol;
+        }
+        if (kind.isNumeric()) {
+            values()[size] = value;
+        }
+        size++;
+    }
+
+    @Override
+    public void accept(TokenKind kind, int offset, int length, int symbol, long value) {
+        add(kind, offset, length, symbol, value);
+    }
+
+    private long[] values() {
+        if (values == null) {
+            values = new long[kinds.length];
+        }
+        return values;
+    }
+
+    /**
+     * Agrega los tokens de {@code other} desde {@code from} (inclusive) hasta {@code to} (exclusive).
+     */
+    void addRange(TokenBuffer other, int from, int to) {
+        int count = to - from;
+        if (size + count > kinds.length) {
+            grow(size + count);
+        }
+        System.arraycopy(other.kinds, from, kinds, size, count);
+        System.arraycopy(other.offsets, from, offsets, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        if (other.values != null) {
+            System.arraycopy(other.values, from, values(), size, count);
+        }
+        if (symbols != null) {
+            if (other.symbols != null) {
+                System.arraycopy(other.symbols, from, symbols, size, count);
+            } else {
+                Arrays.fill(symbols, size, size + count, SymbolTable.NO_SYMBOL);
+            }
+        }
+        size += count;
+    }
+
+    /**
+     * Reemplaza los tokens {@code [from, to)} por los de {@code replacement} y desplaza {@code offsetDelta}
+     * las posiciones de los que siguen, moviéndolos dentro de los mismos arreglos. Lo usa
+     * {@link IncrementalLexer} para corregir los tokens de un código editado sin armar otro buffer.
+     */
+    void splice(int from, int to, TokenBuffer replacement, int offsetDelta) {
+        int count = replacement.size;
+        int newSize = size - (to - from) + count;
+        if (newSize > kinds.length) {
+            grow(newSize);
+        }
+        int tail = size - to;
+        System.arraycopy(kinds, to, kinds, from + count, tail);
+        System.arraycopy(offsets, to, offsets, from + count, tail);
+        System.arraycopy(lengths, to, lengths, from + count, tail);
+        System.arraycopy(replacement.kinds, 0, kinds, from, count);
+        System.arraycopy(replacement.offsets, 0, offsets, from, count);
+        System.arraycopy(replacement.lengths, 0, lengths, from, count);
+        if (values != null) {
+            System.arraycopy(values, to, values, from + count, tail);
+        }
+        if (replacement.values != null) {
+            System.arraycopy(replacement.values, 0, values(), from, count);
+        }
+        if (symbols != null) {
+            System.arraycopy(symbols, to, symbols, from + count, tail);
+            if (replacement.symbols != null) {
+                System.arraycopy(replacement.symbols, 0, symbols, from, count);
+            } else {
+                Arrays.fill(symbols, from, from + count, SymbolTable.NO_SYMBOL);
+            }
+        }
+        if (offsetDelta != 0) {
+            for (int i = from + count; i < newSize; i++) {
+                offsets[i] += offsetDelta;
+            }
+        }
+        size = newSize;
+    }
+
+    /**
+     * Descarta todos los tokens, conservando la capacidad.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Cambia el código fuente de los tokens, que tiene que tener los mismos bytes en sus posiciones.
+     */
+    void useSource(ByteBuffer source) {
+        this.source = source;
+    }
+
+    /**
+     * Usa un índice de líneas del mismo código fuente ya armado, en lugar de armarlo al pedir una posición.
+     */
+    void useLines(LineIndex lines) {
+        this.lines = lines;
+    }
+
+    private LineIndex lines() {
+        if (lines == null) {
+            lines = LineIndex.build(source, source.limit());
+        }
+        return lines;
+    }
+
+    private void grow() {
+        grow(kinds.length + (kinds.length >> 1));
+    }
+
+    private void grow(int minimumCapacity) {
+        int capacity = Math.max(minimumCapacity, kinds.length + (kinds.length >> 1));
+        kinds = Arrays.copyOf(kinds, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        if (symbols != null) {
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+        if (values != null) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * Bytes que ocupan los tokens escritos con {@link #writeTo(WritableByteChannel)}.
+     */
+    long encodedSize() {
+        return Integer.BYTES + align(size) + 2L * Integer.BYTES * size + (long) Long.BYTES * numericCount(kinds, size);
+    }
+
+    /**
+     * Escribe los tokens (sin símbolos) en {@code out}: la cantidad, los tipos y, alineados a 4 bytes
+     * desde el comienzo, los arreglos de posiciones y longitudes y los valores de los literales numéricos,
+     * en orden, en little endian. Los números pasan por un bloque de tamaño fijo, sin armar en memoria una
+     * copia de todos los tokens.
+     */
+    void writeTo(WritableByteChannel out) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(IO_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        block.putInt(size).flip();
+        writeFully(out, block);
+        writeFully(out, ByteBuffer.wrap(kinds, 0, size));
+        writeFully(out, ByteBuffer.allocate(align(size) - size));
+        for (int[] values : new int[][] {offsets, lengths}) {
+            for (int from = 0; from < size; from += IO_BLOCK_SIZE / Integer.BYTES) {
+                int count = Math.min(size - from, IO_BLOCK_SIZE / Integer.BYTES);
+                block.clear().asIntBuffer().put(values, from, count);
+                writeFully(out, block.limit(count * Integer.BYTES));
+            }
+        }
+        block.clear();
+        for (int i = 0; i < size; i++) {
+            if (TokenKind.fromOrdinal(kinds[i]).isNumeric()) {
+                if (!block.hasRemaining()) {
+                    writeFully(out, block.flip());
+                    block.clear();
+                }
+                block.putLong(values[i]);
+            }
+        }
+        writeFully(out, block.flip());
+    }
+
+    /**
+     * Lee tokens escritos con {@link #writeTo(WritableByteChannel)} cuyo código fuente es {@code source}.
+     * @param available Bytes que quedan en {@code in}, para no crear arreglos más grandes que los datos.
+     * @throws IllegalArgumentException Si los datos no alcanzan o no son tokens válidos.
+     */
+    static TokenBuffer readFrom(ByteBuffer source, ReadableByteChannel in, long available) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(IO_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(in, block.limit(Integer.BYTES));
+        int count = block.flip().getInt();
+        if (count < 0 || available - Integer.BYTES < align(count) + 2L * Integer.BYTES * count) {
+            throw new IllegalArgumentException("Tokens incompletos");
+        }
+        byte[] kinds = new byte[count];
+        readFully(in, ByteBuffer.wrap(kinds));
+        int kindCount = TokenKind.values().length;
+        for (int i = 0; i < count; i++) {
+            if (kinds[i] < 0 || kinds[i] >= kindCount) {
+                throw new IllegalArgumentException("Token inválido en la posición " + i);
+            }
+        }
+        int numeric = numericCount(kinds, count);
+        if (available - Integer.BYTES - align(count) - 2L * Integer.BYTES * count < (long) Long.BYTES * numeric) {
+            throw new IllegalArgumentException("Tokens incompletos");
+        }
+        readFully(in, block.clear().limit(align(count) - count));
+        int[][] positions = new int[2][count];
+        for (int[] array : positions) {
+            for (int from = 0; from < count; from += IO_BLOCK_SIZE / Integer.BYTES) {
+                int length = Math.min(count - from, IO_BLOCK_SIZE / Integer.BYTES);
+                readFully(in, block.clear().limit(length * Integer.BYTES));
+                block.flip().asIntBuffer().get(array, from, length);
+            }
+        }
+        long[] values = numeric > 0 ? new long[count] : null;
+        block.clear().limit(0);
+        for (int i = 0; i < count && numeric > 0; i++) {
+            TokenKind kind = TokenKind.fromOrdinal(kinds[i]);
+            if (kind.isNumeric()) {
+                if (!block.hasRemaining()) {
+                    readFully(in, block.clear().limit(Math.min(IO_BLOCK_SIZE, Long.BYTES * numeric)));
+                    block.flip();
+                }
+                values[i] = block.getLong();
+                numeric--;
+                if (!validValue(kind, values[i])) {
+                    throw new IllegalArgumentException("Valor inválido en la posición " + i);
+                }
+            }
+        }
+        int sourceSize = source.limit();
+        for (int i = 0; i < count; i++) {
+            if (positions[0][i] < 0 || positions[1][i] < 0 || positions[0][i] + positions[1][i] > sourceSize) {
+                throw new IllegalArgumentException("Token inválido en la posición " + i);
+            }
+        }
+        return new TokenBuffer(source, kinds, positions[0], positions[1], values);
+    }
+
+    private static int numericCount(byte[] kinds, int size) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (TokenKind.fromOrdinal(kinds[i]).isNumeric()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Indica si el valor puede ser el de un literal del tipo indicado, que no tiene signo y entra en su tipo.
+     */
+    private static boolean validValue(TokenKind kind, long value) {
+        if (kind == TokenKind.INT_LITERAL) {
+            return value >= 0;
+        }
+        double number = Double.longBitsToDouble(value);
+        return number >= 0 && number <= Double.MAX_VALUE;
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel in, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            if (in.read(data) == -1) {
+                throw new IllegalArgumentException("Tokens incompletos");
+            }
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ByteBuffer getSource() {
+        return source;
+    }
+
+    /**
+     * Tabla de símbolos de los tokens, o {@code null} si no se guardan símbolos.
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    public TokenKind kind(int index) {
+        return TokenKind.fromOrdinal(kinds[checkIndex(index)]);
+    }
+
+    public int offset(int index) {
+        return offsets[checkIndex(index)];
+    }
+
+    public int length(int index) {
+        return lengths[checkIndex(index)];
+    }
+
+    /**
+     * Fila del token, calculada a pedido; para recorrer todos los tokens conviene un {@link Cursor}.
+     */
+    public int row(int index) {
+        return lines().row(start(index));
+    }
+
+    public int column(int index) {
+        return lines().column(start(index));
+    }
+
+    /**
+     * Símbolo del token en la tabla de símbolos, o {@link SymbolTable#NO_SYMBOL}.
+     */
+    public int symbol(int index) {
+        checkIndex(index);
+        return symbols != null ? symbols[index] : SymbolTable.NO_SYMBOL;
+    }
+
+    /**
+     * Posición del primer byte del token en el código fuente; a diferencia de {@link #offset(int)},
+     * incluye la comilla inicial de los strings.
+     */
+    int start(int index) {
+        return kinds[checkIndex(index)] == TokenKind.STR_LITERAL.ordinal() ? offsets[index] - 1 : offsets[index];
+    }
+
+    /**
+     * Posición siguiente al último byte del token, incluida la comilla final de los strings.
+     */
+    int end(int index) {
+        int end = offsets[checkIndex(index)] + lengths[index];
+        return kinds[index] == TokenKind.STR_LITERAL.ordinal() ? end + 1 : end;
+    }
+
+    public String lexeme(int index) {
+        TokenKind kind = kind(index);
+        if (kind.hasFixedLexeme()) {
+            return kind.getFixedLexeme();
+        }
+        if (symbols != null && symbols[index] != SymbolTable.NO_SYMBOL) {
+            return symbolTable.name(symbols[index]);
+        }
+        return Token.decode(source, offsets[index], lengths[index]);
+    }
+
+    /**
+     * Crea un {@link Token} con los datos de la posición indicada.
+     */
+    public Token token(int index) {
+        TokenKind kind = kind(index);
+        int row = row(index);
+        int column = column(index);
+        if (kind.hasFixedLexeme()) {
+            return new Token(kind, offsets[index], row, column);
+        }
+        if (symbols != null && symbols[index] != SymbolTable.NO_SYMBOL) {
+            return new Token(kind, offsets[index], lengths[index], row, column, symbolTable, symbols[index]);
+        }
+        if (kind.isNumeric()) {
+            return new Token(kind, source, offsets[index], lengths[index], row, column, values[index]);
+        }
+        return new Token(kind, source, offsets[index], lengths[index], row, column);
+    }
+
+    /**
+     * Valor de un 'intLiteral', el que calculó el analizador al leerlo.
+     * @throws IllegalStateException Si el token no es un 'intLiteral'.
+     */
+    public long intValue(int index) {
+        if (kind(index) != TokenKind.INT_LITERAL) {
+            throw new IllegalStateException("El token " + index + " no es un 'intLiteral'");
+        }
+        return values[index];
+    }
+
+    /**
+     * Valor de un 'doubleLiteral', o el de un 'intLiteral' convertido a {@code double}.
+     * @throws IllegalStateException Si el token no es un literal numérico.
+     */
+    public double doubleValue(int index) {
+        TokenKind kind = kind(index);
+        if (kind == TokenKind.INT_LITERAL) {
+            return values[index];
+        }
+        if (kind != TokenKind.DOUBLE_LITERAL) {
+            throw new IllegalStateException("El token " + index + " no es un literal numérico");
+        }
+        return Double.longBitsToDouble(values[index]);
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+
+    /**
+     * Recorre el buffer en orden sin crear objetos por token.
+     * Empieza antes del primer token: hay que llamar a {@link #next()} antes de leerlo.
+     */
+    public final class Cursor {
+        private int index = -1;
+        private LineIndex.Tracker positions;
+        private int resolved = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Avanza al siguiente token.
+         * @return false si ya no quedan tokens.
+         */
+        public boolean next() {
+            if (index + 1 >= size) {
+                index = size;
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public void reset() {
+            index = -1;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public TokenKind kind() {
+            return TokenKind.fromOrdinal(kinds[index]);
+        }
+
+        public int offset() {
+            return offsets[index];
+        }
+
+        public int length() {
+            return lengths[index];
+        }
+
+        public int row() {
+            return position().row();
+        }
+
+        public int column() {
+            return position().column();
+        }
+
+        private LineIndex.Tracker position() {
+            if (resolved != index) {
+                if (positions == null) {
+                    positions = lines().tracker();
+                }
+                positions.moveTo(start(index));
+                resolved = index;
+            }
+            return positions;
+        }
+
+        public int symbol() {
+            return symbols != null ? symbols[index] : SymbolTable.NO_SYMBOL;
+        }
+
+        public String lexeme() {
+            return TokenBuffer.this.lexeme(index);
+        }
+
+        public long intValue() {
+            return TokenBuffer.this.intValue(index);
+        }
+
+        public double doubleValue() {
+            return TokenBuffer.this.doubleValue(index);
+        }
+    }
+}
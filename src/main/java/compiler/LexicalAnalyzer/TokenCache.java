@@ -0,0 +1,375 @@
+package compiler.LexicalAnalyzer;
+
+import compiler.FileScanner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Caché en disco de los resultados del análisis léxico, indexada por el SHA-256 del contenido de
+ * cada archivo. Guarda los tokens de un archivo, o su error léxico, en un formato binario compacto;
+ * si el contenido no cambió, se leen de la caché en lugar de volver a analizarlo. Las entradas se leen
+ * y escriben por bloques a través del canal, sin mapearlas en memoria: un mapeo sigue vivo hasta que lo
+ * libera el recolector y en Windows impide mover o borrar el archivo.
+ * <p>
+ * Cada entrada lleva en la cabecera la {@link LexicalAnalyzer#VERSION versión} del analizador que la
+ * generó; las de otra versión se descartan. Cuando la caché supera su tamaño máximo se borran las
+ * entradas usadas hace más tiempo: cada acierto actualiza la fecha de modificación del archivo.
+ * Las entradas se escriben en un archivo temporal y se mueven a su lugar, así que varios procesos
+ * o hilos pueden compartir el mismo directorio.
+ * <p>
+ * La caché nunca cambia el resultado del análisis: si una entrada no se puede leer o escribir (disco
+ * lleno, directorio de solo lectura), el archivo se analiza igual y la falla solo se cuenta en
+ * {@link #getFailures()}; la primera se informa en el log.
+ */
+public final class TokenCache {
+
+    public static final long DEFAULT_MAX_SIZE = 256L << 20;
+
+    /**
+     * "TKCH": identifica los archivos de la caché.
+     */
+    private static final int MAGIC = 0x544B4348;
+    private static final int FORMAT_VERSION = 4;
+    /**
+     * Cuatro enteros y el estado, completado hasta 4 bytes para que los enteros que siguen queden alineados.
+     */
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final byte TOKENS = 'T';
+    private static final byte ERROR = 'E';
+    private static final String EXTENSION = ".tok";
+
+    /**
+     * Al superar el tamaño máximo se borra hasta quedar en esta fracción, para no recorrer el
+     * directorio en cada escritura siguiente.
+     */
+    private static final double EVICTION_TARGET = 0.9;
+
+    /**
+     * Una entrada de error más grande que esto está dañada.
+     */
+    private static final int MAX_ERROR_ENTRY_SIZE = 1 << 20;
+
+    private static final System.Logger LOGGER = System.getLogger(TokenCache.class.getName());
+
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public TokenCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    public TokenCache(Path directory, long maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+        for (Path entry : entries()) {
+            size.addAndGet(sizeOf(entry));
+        }
+        if (size.get() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Devuelve los tokens del archivo, de la caché si su contenido ya fue analizado por esta versión
+     * del analizador o analizándolo (en paralelo si es grande) y guardando el resultado si no.
+     * @throws LexicalException Si el archivo tiene un error léxico, esté o no en la caché.
+     * @throws IOException Si no se puede leer el archivo; las fallas de la caché no se propagan.
+     */
+    public TokenBuffer tokenize(String filePath) throws IOException {
+        FileScanner fileScanner = LexicalAnalyzer.openSource(filePath);
+        String key = hash(fileScanner.buffer());
+        Path entry = directory.resolve(key + EXTENSION);
+        TokenBuffer cached = load(entry, fileScanner.buffer());
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+        TokenBuffer tokens;
+        try {
+            tokens = ParallelLexer.tokenize(fileScanner, LexicalAnalyzer.Engine.CLASSIC, ForkJoinPool.commonPool());
+        } catch (LexicalException e) {
+            store(entry, key, errorEntry(fileScanner.size(), e));
+            throw e;
+        }
+        store(entry, key, tokenEntry(fileScanner.size(), tokens));
+        return tokens;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Lecturas y escrituras de entradas que fallaron; cada una se resolvió analizando el archivo.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Bytes que ocupan las entradas de la caché.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    private static String hash(ByteBuffer source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(source.duplicate().clear());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Toda implementación de Java debe incluir SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Lee una entrada, o devuelve null si no existe, no se puede leer o no sirve (otra versión, otro
+     * tamaño de fuente o datos dañados); las que no sirven se borran.
+     * @throws LexicalException Si la entrada guarda un error léxico.
+     */
+    private TokenBuffer load(Path entry, ByteBuffer source) {
+        Object result;
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            result = read(channel, source);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            // El canal ya está cerrado, así que se puede borrar
+            remove(entry);
+            return null;
+        } catch (IOException e) {
+            failed("leer", entry, e);
+            return null;
+        }
+        touch(entry);
+        hits.incrementAndGet();
+        if (result instanceof LexicalException error) {
+            throw error;
+        }
+        return (TokenBuffer) result;
+    }
+
+    /**
+     * Lee la cabecera y el contenido de una entrada: los tokens o el error léxico guardados.
+     */
+    private static Object read(FileChannel channel, ByteBuffer source) throws IOException {
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (length < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE) {
+            throw new IllegalArgumentException("Cabecera incompleta");
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                || header.getInt() != LexicalAnalyzer.VERSION || header.getInt() != source.limit()) {
+            throw new IllegalArgumentException("Cabecera inválida");
+        }
+        byte status = header.get();
+        channel.position(HEADER_SIZE);
+        return switch (status) {
+            case TOKENS -> TokenBuffer.readFrom(source, channel, length - HEADER_SIZE);
+            case ERROR -> readError(readBody(channel, length - HEADER_SIZE));
+            default -> throw new IllegalArgumentException("Estado inválido: " + status);
+        };
+    }
+
+    private static ByteBuffer readBody(FileChannel channel, long length) throws IOException {
+        if (length > MAX_ERROR_ENTRY_SIZE) {
+            throw new IllegalArgumentException("Entrada de error demasiado grande");
+        }
+        ByteBuffer body = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        while (body.hasRemaining() && channel.read(body) != -1) {
+            // Se lee hasta tener la entrada completa en memoria.
+        }
+        return body.flip();
+    }
+
+    private static LexicalException readError(ByteBuffer in) {
+        int row = in.getInt();
+        int column = in.getInt();
+        String description = readString(in);
+        String lexeme = readString(in);
+        return new LexicalException(description, lexeme, row, column);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Texto incompleto");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer header(int sourceSize, byte status) {
+        return ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC).putInt(FORMAT_VERSION).putInt(LexicalAnalyzer.VERSION).putInt(sourceSize).put(status)
+                .position(HEADER_SIZE);
+    }
+
+    /**
+     * Escribe una entrada: recibe el canal del archivo temporal y devuelve los bytes escritos.
+     */
+    private interface EntryWriter {
+        long write(FileChannel channel) throws IOException;
+    }
+
+    private static EntryWriter tokenEntry(int sourceSize, TokenBuffer tokens) {
+        return channel -> {
+            ByteBuffer header = header(sourceSize, TOKENS).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            tokens.writeTo(channel);
+            return HEADER_SIZE + tokens.encodedSize();
+        };
+    }
+
+    private static EntryWriter errorEntry(int sourceSize, LexicalException error) {
+        return channel -> {
+            byte[] description = error.getDescription().getBytes(StandardCharsets.UTF_8);
+            byte[] lexeme = error.getInvalidLexeme().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer body = ByteBuffer.allocate(4 * Integer.BYTES + description.length + lexeme.length)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(error.getRow()).putInt(error.getColumn())
+                    .putInt(description.length).put(description)
+                    .putInt(lexeme.length).put(lexeme)
+                    .flip();
+            ByteBuffer[] entry = {header(sourceSize, ERROR).flip(), body};
+            long length = HEADER_SIZE + body.remaining();
+            while (entry[1].hasRemaining()) {
+                channel.write(entry);
+            }
+            return length;
+        };
+    }
+
+    /**
+     * Guarda una entrada. Si no se puede, la falla se cuenta y el análisis sigue sin la caché.
+     */
+    private void store(Path entry, String key, EntryWriter writer) {
+        try {
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            long length;
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    length = writer.write(channel);
+                }
+                long replaced = sizeOf(entry);
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                size.addAndGet(length - replaced);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            if (size.get() > maxSize) {
+                evict();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            failed("guardar", entry, e);
+        }
+    }
+
+    private void failed(String operation, Path entry, Exception e) {
+        if (failures.getAndIncrement() == 0) {
+            LOGGER.log(System.Logger.Level.WARNING, "No se pudo " + operation + " la entrada " + entry
+                    + " de la caché; se sigue analizando sin ella: " + e);
+        }
+    }
+
+    /**
+     * Borra las entradas usadas hace más tiempo hasta bajar del tamaño objetivo.
+     */
+    private synchronized void evict() throws IOException {
+        if (size.get() <= maxSize) {
+            return;
+        }
+        // Las fechas se leen antes de ordenar: un acierto concurrente podría cambiarlas durante el orden
+        List<UsedEntry> entries = new ArrayList<>();
+        for (Path entry : entries()) {
+            entries.add(new UsedEntry(entry, lastUsed(entry)));
+        }
+        entries.sort(Comparator.comparing(UsedEntry::lastUsed));
+        long target = (long) (maxSize * EVICTION_TARGET);
+        for (UsedEntry entry : entries) {
+            if (size.get() <= target) {
+                break;
+            }
+            remove(entry.path());
+        }
+    }
+
+    private record UsedEntry(Path path, FileTime lastUsed) {
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).toList();
+        }
+    }
+
+    private void remove(Path entry) {
+        long length = sizeOf(entry);
+        try {
+            if (Files.deleteIfExists(entry)) {
+                size.addAndGet(-length);
+            }
+        } catch (IOException e) {
+            // Sigue ocupando lugar; se vuelve a intentar en la próxima limpieza
+        }
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Otro proceso pudo borrarla; solo se pierde su posición en el orden de uso
+        }
+    }
+
+    private static FileTime lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
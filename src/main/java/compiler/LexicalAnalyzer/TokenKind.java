@@ -0,0 +1,133 @@
+package compiler.LexicalAnalyzer;
+
+/**
+ * Tipos de token de TinyS.
+ * Los tokens de lexema fijo (operadores, puntuación y palabras clave) comparten la instancia
+ * del lexema guardada aquí, por lo que no necesitan un {@code String} propio.
+ */
+public enum TokenKind {
+    // Identificadores y literales
+    ID_CLASS("idClass", null),
+    ID_MET_AT("idMetAt", null),
+    STR_LITERAL("StrLiteral", null),
+    INT_LITERAL("intLiteral", null),
+    DOUBLE_LITERAL("doubleLiteral", null),
+
+    // Palabras clave, su nombre es el propio lexema
+    CLASS("class", "class"),
+    IMPL("impl", "impl"),
+    ELSE("else", "else"),
+    FALSE("false", "false"),
+    IF("if", "if"),
+    RET("ret", "ret"),
+    WHILE("while", "while"),
+    TRUE("true", "true"),
+    NIL("nil", "nil"),
+    NEW("new", "new"),
+    FN("fn", "fn"),
+    ST("st", "st"),
+    PUB("pub", "pub"),
+    SELF("self", "self"),
+    DIV("div", "div"),
+    VOID("void", "void"),
+    START("start", "start"),
+
+    // Puntuación
+    L_PAREN("lParen", "("),
+    R_PAREN("rParen", ")"),
+    L_BRACE("lBrace", "{"),
+    R_BRACE("rBrace", "}"),
+    L_BRACKET("lBracket", "["),
+    R_BRACKET("rBracket", "]"),
+    COMMA("comma", ","),
+    SEMICOLON("semicolon", ";"),
+    DOT("dot", "."),
+
+    // Operadores
+    ASSIGN_OP("assignOp", "="),
+    EQUALS_OP("equalsOp", "=="),
+    LESS_OP("lessOp", "<"),
+    LESS_EQ_OP("lessEqOp", "<="),
+    GREATER_OP("greaterOp", ">"),
+    GREATER_EQ_OP("greaterEqOp", ">="),
+    ADD_OP("addOp", "+"),
+    INCREMENT_OP("incrementOp", "++"),
+    SUB_OP("subOp", "-"),
+    MUL_OP("mulOp", "*"),
+    DIV_OP("op_div", "/"),
+    NOT_OP("notOp", "!"),
+    AND_OP("andOp", "&&"),
+    OR_OP("orOp", "||"),
+
+    EOF("EOF", "");
+
+    private static final TokenKind[] VALUES = values();
+    private static final TokenKind[] SINGLE_CHARACTER_KINDS = new TokenKind[256];
+
+    static {
+        for (TokenKind kind : new TokenKind[]{L_PAREN, R_PAREN, L_BRACE, R_BRACE, L_BRACKET, R_BRACKET,
+                COMMA, SEMICOLON, DOT, SUB_OP, MUL_OP, NOT_OP}) {
+            SINGLE_CHARACTER_KINDS[kind.fixedLexeme.charAt(0)] = kind;
+        }
+    }
+
+    private final String name;
+    private final String fixedLexeme;
+
+    TokenKind(String name, String fixedLexeme) {
+        this.name = name;
+        this.fixedLexeme = fixedLexeme;
+    }
+
+    /**
+     * Nombre del token tal como se muestra en la salida, por ejemplo {@code "idMetAt"}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Lexema compartido de los tokens fijos, o {@code null} si el lexema depende del código fuente.
+     */
+    public String getFixedLexeme() {
+        return fixedLexeme;
+    }
+
+    public boolean hasFixedLexeme() {
+        return fixedLexeme != null;
+    }
+
+    public boolean isKeyword() {
+        return compareTo(CLASS) >= 0 && compareTo(START) <= 0;
+    }
+
+    /**
+     * Indica si los lexemas de este tipo se guardan en una {@link SymbolTable}: identificadores y strings.
+     */
+    public boolean hasSymbol() {
+        return this == ID_CLASS || this == ID_MET_AT || this == STR_LITERAL;
+    }
+
+    /**
+     * Indica si los tokens de este tipo llevan el valor numérico de su literal.
+     */
+    public boolean isNumeric() {
+        return this == INT_LITERAL || this == DOUBLE_LITERAL;
+    }
+
+    /**
+     * Tipo de los tokens de un solo carácter, o {@code null} si el carácter no forma uno.
+     */
+    static TokenKind forSingleCharacter(int character) {
+        return character >= 0 && character < 256 ? SINGLE_CHARACTER_KINDS[character] : null;
+    }
+
+    static TokenKind fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
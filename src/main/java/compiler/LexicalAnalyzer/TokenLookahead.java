@@ -0,0 +1,228 @@
+package compiler.LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fuente de tokens para el analizador sintáctico con lookahead de varios tokens y vuelta atrás.
+ * Guarda los tokens ya reconocidos en un buffer circular de tamaño fijo, en arreglos primitivos como
+ * {@link TokenBuffer}, y reutiliza sus lugares: no crea objetos por token ni vuelve a analizar nada.
+ * <p>
+ * Los tokens se numeran desde el actual: {@code peek(1)} es el actual, {@code peek(2)} el siguiente, etc.
+ * Con {@link #mark()} se fija una posición a la que se puede volver con {@link #reset(int)}; mientras
+ * haya marcas activas los tokens desde la más antigua no se descartan, así que el lookahead total desde
+ * ella no puede superar la capacidad. Después del EOF todos los tokens son el mismo EOF.
+ */
+public class TokenLookahead implements TokenSink {
+
+    private final LexicalAnalyzer lexer;
+    private final ByteBuffer source;
+    private final int mask;
+    private final byte[] kinds;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] symbols;
+    private final long[] values;
+    /** Número del token actual, contando desde el primero del analizador. */
+    private int position;
+    /** Número del próximo token que se va a pedir al analizador. */
+    private int end;
+    /** Número del EOF, o -1 si todavía no se reconoció. */
+    private int eof = -1;
+    private int activeMarks;
+    private int firstMark;
+
+    /**
+     * @param capacity Cantidad de tokens que se guardan; se redondea a una potencia de dos.
+     */
+    public TokenLookahead(LexicalAnalyzer lexer, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.lexer = lexer;
+        this.source = lexer.getSource();
+        this.mask = size - 1;
+        this.kinds = new byte[size];
+        this.offsets = new int[size];
+        this.lengths = new int[size];
+        this.symbols = new int[size];
+        this.values = new long[size];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Tipo del {@code k}-ésimo token desde el actual (1 es el actual), analizándolo si hace falta.
+     * @throws IllegalStateException Si el token no entra en el buffer junto con los que retienen las marcas.
+     */
+    public TokenKind peek(int k) {
+        return TokenKind.fromOrdinal(kinds[slot(k)]);
+    }
+
+    /**
+     * Indica si el {@code k}-ésimo token desde el actual es del tipo indicado.
+     */
+    public boolean peekIs(int k, TokenKind kind) {
+        return kinds[slot(k)] == kind.ordinal();
+    }
+
+    public int offset(int k) {
+        return offsets[slot(k)];
+    }
+
+    public int length(int k) {
+        return lengths[slot(k)];
+    }
+
+    /**
+     * Símbolo del token en la tabla de símbolos del analizador, o {@link SymbolTable#NO_SYMBOL}.
+     */
+    public int symbol(int k) {
+        return symbols[slot(k)];
+    }
+
+    public String lexeme(int k) {
+        int slot = slot(k);
+        TokenKind kind = TokenKind.fromOrdinal(kinds[slot]);
+        if (kind.hasFixedLexeme()) {
+            return kind.getFixedLexeme();
+        }
+        if (symbols[slot] != SymbolTable.NO_SYMBOL) {
+            return lexer.getSymbolTable().name(symbols[slot]);
+        }
+        return Token.decode(source, offsets[slot], lengths[slot]);
+    }
+
+    /**
+     * Fila del token, calculada a pedido como en {@link LexicalAnalyzer#row(int)}.
+     */
+    public int row(int k) {
+        return lexer.row(start(slot(k)));
+    }
+
+    public int column(int k) {
+        return lexer.column(start(slot(k)));
+    }
+
+    /**
+     * Crea un {@link Token} con los datos del {@code k}-ésimo token, para mensajes o para guardarlo.
+     */
+    public Token token(int k) {
+        int slot = slot(k);
+        TokenKind kind = TokenKind.fromOrdinal(kinds[slot]);
+        int row = lexer.row(start(slot));
+        int column = lexer.column(start(slot));
+        if (kind.hasFixedLexeme()) {
+            return new Token(kind, offsets[slot], row, column);
+        }
+        if (symbols[slot] != SymbolTable.NO_SYMBOL) {
+            return new Token(kind, offsets[slot], lengths[slot], row, column, lexer.getSymbolTable(), symbols[slot]);
+        }
+        if (kind.isNumeric()) {
+            return new Token(kind, source, offsets[slot], lengths[slot], row, column, values[slot]);
+        }
+        return new Token(kind, source, offsets[slot], lengths[slot], row, column);
+    }
+
+    /**
+     * Avanza al siguiente token; en el EOF no hace nada.
+     */
+    public void consume() {
+        if (eof < 0 || position < eof) {
+            slot(1);
+            position++;
+        }
+    }
+
+    /**
+     * Número del token actual, contando desde el primero del analizador.
+     */
+    public int index() {
+        return position;
+    }
+
+    /**
+     * Fija la posición actual para volver a ella con {@link #reset(int)}. Las marcas se pueden anidar;
+     * cada una se libera con {@link #release(int)}.
+     * @return La marca, que es el número del token actual.
+     */
+    public int mark() {
+        if (activeMarks == 0) {
+            firstMark = position;
+        }
+        activeMarks++;
+        return position;
+    }
+
+    /**
+     * Vuelve al token de la marca, que sigue activa.
+     */
+    public void reset(int mark) {
+        if (activeMarks == 0 || mark < firstMark || mark > end) {
+            throw new IllegalStateException("La marca " + mark + " no está activa");
+        }
+        position = mark;
+    }
+
+    /**
+     * Libera la marca más reciente; al liberar todas, los tokens anteriores al actual se pueden descartar.
+     */
+    public void release(int mark) {
+        if (activeMarks == 0 || mark < firstMark) {
+            throw new IllegalStateException("La marca " + mark + " no está activa");
+        }
+        activeMarks--;
+    }
+
+    @Override
+    public void accept(TokenKind kind, int offset, int length, int symbol, long value) {
+        int slot = end & mask;
+        kinds[slot] = (byte) kind.ordinal();
+        offsets[slot] = offset;
+        lengths[slot] = length;
+        symbols[slot] = symbol;
+        values[slot] = value;
+        if (kind == TokenKind.EOF) {
+            eof = end;
+        }
+        end++;
+    }
+
+    /**
+     * Lugar del buffer del {@code k}-ésimo token desde el actual, pidiendo al analizador los que falten.
+     */
+    private int slot(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("El lookahead empieza en 1: " + k);
+        }
+        long wanted = (long) position + k - 1;
+        if (eof >= 0 && wanted >= eof) {
+            return eof & mask;
+        }
+        int oldest = activeMarks > 0 ? firstMark : position;
+        // Se analiza lo que entra aunque se pida más: si aparece el EOF, el token pedido es él
+        while (end <= wanted && eof < 0 && end - oldest <= mask) {
+            lexer.scanInto(this);
+        }
+        if (eof >= 0 && wanted >= eof) {
+            return eof & mask;
+        }
+        if (wanted - oldest > mask) {
+            throw new IllegalStateException("El lookahead de " + (wanted - oldest + 1)
+                    + " tokens excede la capacidad de " + capacity());
+        }
+        return (int) wanted & mask;
+    }
+
+    /**
+     * Posición del primer byte del token, incluida la comilla inicial de los strings.
+     */
+    private int start(int slot) {
+        return kinds[slot] == TokenKind.STR_LITERAL.ordinal() ? offsets[slot] - 1 : offsets[slot];
+    }
+}
@@ -0,0 +1,19 @@
+package compiler.LexicalAnalyzer;
+
+/**
+ * Receptor de tokens a medida que el analizador los reconoce, sin crear un objeto por token.
+ * Los lexemas se pueden obtener de {@link LexicalAnalyzer#getSource()} con la posición y la longitud,
+ * y la fila y la columna, solo si hacen falta, con {@link LexicalAnalyzer#row(int)} y
+ * {@link LexicalAnalyzer#column(int)} (la posición de un string es la de su contenido, sin la comilla inicial).
+ * El símbolo es el de la {@link SymbolTable} del analizador, o {@link SymbolTable#NO_SYMBOL}.
+ * El valor de los literales numéricos se calcula mientras se leen sus dígitos y se entrega junto con el token.
+ */
+@FunctionalInterface
+public interface TokenSink {
+
+    /**
+     * @param value El valor de un 'intLiteral' o los bits de un 'doubleLiteral'
+     *              ({@link Double#doubleToRawLongBits(double)}); para los demás tokens no tiene significado.
+     */
+    void accept(TokenKind kind, int offset, int length, int symbol, long value);
+}
@@ -0,0 +1,146 @@
+package compiler.LexicalAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Espacios en blanco y comentarios pegados a un token en el modo que los conserva
+ * ({@link LexicalAnalyzer#setPreservingTrivia(boolean)}). Como los lexemas de {@link Token}, solo se
+ * guarda la posición dentro del código fuente: el texto se decodifica recién cuando se pide.
+ */
+public final class Trivia {
+
+    /**
+     * Tipo de cada parte en que se divide un tramo de trivia.
+     */
+    public enum Kind {
+        WHITESPACE,
+        LINE_COMMENT,
+        BLOCK_COMMENT
+    }
+
+    /**
+     * Parte de un tramo de trivia: un bloque de espacios seguidos o un comentario completo,
+     * incluidos sus delimitadores (el salto de línea que cierra un comentario de una línea no es parte de él).
+     */
+    public record Piece(Kind kind, int offset, int length) {
+    }
+
+    private final ByteBuffer source;
+    private final int offset;
+    private final int length;
+
+    Trivia(ByteBuffer source, int offset, int length) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Posición del tramo dentro del código fuente, en bytes.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public String getText() {
+        return Token.decode(source, offset, length);
+    }
+
+    /**
+     * Divide el tramo en espacios y comentarios, en el orden del código fuente.
+     */
+    public List<Piece> pieces() {
+        List<Piece> pieces = new ArrayList<>();
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int start = i;
+            Kind kind;
+            if (startsComment(source, i, end, '/')) {
+                kind = Kind.LINE_COMMENT;
+                while (i < end && source.get(i) != '\n') {
+                    i++;
+                }
+            } else if (startsComment(source, i, end, '*')) {
+                kind = Kind.BLOCK_COMMENT;
+                i = blockCommentEnd(source, i, end);
+                if (i < 0) {
+                    i = end;
+                }
+            } else {
+                kind = Kind.WHITESPACE;
+                while (i < end && source.get(i) != '/') {
+                    i++;
+                }
+            }
+            pieces.add(new Piece(kind, start, i - start));
+        }
+        return pieces;
+    }
+
+    /**
+     * Fin de la trivia que sigue a un token terminado en {@code from}: espacios y comentarios hasta el
+     * primer salto de línea inclusive. Un comentario de varias líneas que empieza en la misma línea queda
+     * completo; uno sin cerrar no es trivia, para que el analizador informe el error al llegar a él.
+     * Solo mira los bytes: los comentarios se validan igual cuando el analizador los saltea.
+     */
+    static int trailingEnd(ByteBuffer source, int from, int limit) {
+        int i = from;
+        while (i < limit) {
+            int b = source.get(i);
+            if (b == '\n') {
+                return i + 1;
+            } else if (isWhitespace(b)) {
+                i++;
+            } else if (startsComment(source, i, limit, '/')) {
+                i = ByteScanner.skipLineComment(source, i, limit);
+                while (i < limit && source.get(i) != '\n') {
+                    // Caracteres no ASCII dentro del comentario
+                    i = ByteScanner.skipLineComment(source, i + 1, limit);
+                }
+            } else if (startsComment(source, i, limit, '*')) {
+                int end = blockCommentEnd(source, i, limit);
+                if (end < 0) {
+                    return i;
+                }
+                i = end;
+            } else {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Los mismos caracteres ASCII que acepta {@link Character#isWhitespace(int)}.
+     */
+    private static boolean isWhitespace(int b) {
+        return (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= ' ');
+    }
+
+    private static boolean startsComment(ByteBuffer source, int i, int limit, char second) {
+        return i + 1 < limit && source.get(i) == '/' && source.get(i + 1) == second;
+    }
+
+    /**
+     * Posición siguiente al cierre del comentario que empieza en {@code start}, o -1 si no se cierra.
+     */
+    private static int blockCommentEnd(ByteBuffer source, int start, int limit) {
+        for (int i = start + 2; i + 1 < limit; i++) {
+            if (source.get(i) == '*' && source.get(i + 1) == '/') {
+                return i + 2;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,73 +1,287 @@
 package compiler;
 
+import compiler.LexicalAnalyzer.LexFileEvent;
+import compiler.LexicalAnalyzer.LexerMetrics;
 import compiler.LexicalAnalyzer.LexicalAnalyzer;
 import compiler.LexicalAnalyzer.LexicalException;
-import compiler.LexicalAnalyzer.Token;
+import compiler.LexicalAnalyzer.ParallelLexer;
+import compiler.LexicalAnalyzer.SymbolTable;
+import compiler.LexicalAnalyzer.TokenBuffer;
+import compiler.LexicalAnalyzer.TokenCache;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Uso: Main [--recover] [--no-color] [--metrics] [--symbols] [--cache=DIRECTORIO] [--cache-size=MB]"
+                    + " [--format=" + TokenPrinter.Format.choices() + "] [archivos...]",
+            "     Main --generate <archivo> <MB> [mezcla]",
+            "     Main --soak [MB] [mezcla]",
+            "     Main --daemon <socket>",
+            "La mezcla es statements=N,comments=N,strings=N,numbers=N");
+
     public static void main(String[] args) throws IOException {
 
-        // execute("src/test/java/fibonacci.s");
+        if (args.length > 0 && args[0].equals("--generate")) {
+            // --generate <file> <megabytes> [mix]: write a synthetic TinyS program
+            if (args.length < 3) {
+                usage(null);
+            }
+            CorpusGenerator.Mix mix = CorpusGenerator.Mix.DEFAULT;
+            long megabytes = 0;
+            try {
+                megabytes = megabytes(args[2]);
+                mix = args.length > 3 ? CorpusGenerator.Mix.parse(args[3]) : mix;
+            } catch (IllegalArgumentException e) {
+                usage(e.getMessage());
+            }
+            new CorpusGenerator(mix, 1).write(Paths.get(args[1]), megabytes * 1024 * 1024);
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--soak")) {
+            // --soak [max megabytes] [mix]: lex generated corpora of doubling size and report how cost grows;
+            // the maximum is capped at the largest file FileScanner can read (2 GB)
+            long maxMegabytes = 256;
+            CorpusGenerator.Mix mix = CorpusGenerator.Mix.DEFAULT;
+            try {
+                maxMegabytes = args.length > 1 ? megabytes(args[1]) : maxMegabytes;
+                mix = args.length > 2 ? CorpusGenerator.Mix.parse(args[2]) : mix;
+            } catch (IllegalArgumentException e) {
+                usage(e.getMessage());
+            }
+            SoakRunner.run(System.out, 1024 * 1024, maxMegabytes * 1024 * 1024, mix);
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--daemon")) {
+            // --daemon <socket>: keep a warmed-up lexer serving LexerClient requests on a Unix domain socket
+            if (args.length < 2) {
+                usage(null);
+            }
+            new LexerDaemon(Paths.get(args[1]), System.err).serve();
+            return;
+        }
+
+        List<String> paths = new ArrayList<>();
+        boolean recovering = false;
+        boolean color = true;
+        boolean metrics = false;
+        SymbolTable symbols = null;
+        TokenPrinter.Format format = TokenPrinter.Format.TEXT;
+        Path cacheDirectory = null;
+        long cacheSize = TokenCache.DEFAULT_MAX_SIZE;
+        for (String arg : args) {
+            if (arg.equals("--recover")) {
+                // List every lexical error of a file instead of stopping at the first one
+                recovering = true;
+            } else if (arg.equals("--no-color")) {
+                color = false;
+            } else if (arg.equals("--metrics")) {
+                // Print the lexer counters to stderr once every file is done
+                metrics = true;
+            } else if (arg.equals("--symbols")) {
+                // Intern the identifiers and strings of every file into one shared table and report how many are distinct
+                symbols = SymbolTable.concurrent();
+            } else if (arg.startsWith("--cache=")) {
+                // Keep the tokens of every file in this directory and reuse them while the file is unchanged
+                cacheDirectory = Paths.get(arg.substring("--cache=".length()));
+            } else if (arg.startsWith("--cache-size=")) {
+                try {
+                    cacheSize = megabytes(arg.substring("--cache-size=".length())) * 1024 * 1024;
+                } catch (IllegalArgumentException e) {
+                    usage(e.getMessage());
+                }
+            } else if (arg.startsWith("--format=")) {
+                // text, jsonl, tsv or binary
+                try {
+                    format = TokenPrinter.Format.parse(arg.substring("--format=".length()));
+                } catch (IllegalArgumentException e) {
+                    usage(e.getMessage());
+                }
+            } else {
+                paths.add(arg);
+            }
+        }
+        TokenCache cache = cacheDirectory != null ? new TokenCache(cacheDirectory, cacheSize) : null;
+        BatchLexer.Options options = new BatchLexer.Options(recovering, format, color, cache, System.out.charset(), symbols);
+
+        if (!paths.isEmpty()) {
+            // Batch mode: lex every path given (directories are walked for .s files) concurrently;
+            // .zip, .tar, .tar.gz, .tgz and .s.gz archives are lexed entry by entry without extracting them
+            BatchLexer.run(BatchLexer.collect(paths), System.out, options);
+            if (metrics) {
+                printMetrics(System.err, cache);
+            }
+            return;
+        }
 
         File folder = new File("src/test/lexical/fail");
         File[] files = folder.listFiles();
 
         if (files != null) {
             for (File file : files) {
-                try {
-                    System.out.println(Color.ORANGE_BOLD + "\nAnalizando archivo: " + file.getName() + Color.RESET);
-                    execute(file.getAbsolutePath());
-                } catch (LexicalException e) {
-                    // Print the error message from the LexicalException
-                    System.out.println(Color.RED_BOLD + e.getMessage() + Color.RESET);
-                } catch (FileNotFoundException e) {
-                    // Handle file not found exception
-                    System.out.println(Color.RED_BOLD + "Archivo no encontrado: " + file.getName() + Color.RESET);
-                } catch (IOException e) {
-                    // Handle other IO exceptions
-                    System.out.println(Color.RED_BOLD + "Error de entrada/salida al procesar el archivo: " + file.getName() + Color.RESET);
-                }
+                report(file.getAbsolutePath(), file.getName(), options, System.out, TokenPrinter.DEFAULT_BUFFER_SIZE);
             }
         } else {
             System.out.println("No se encontraron archivos en la carpeta especificada.");
         }
+        if (metrics) {
+            printMetrics(System.err, cache);
+        }
+    }
+
+    /**
+     * Prints the error, if any, and the usage to stderr and exits.
+     */
+    private static void usage(String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the text is not a non-negative number of megabytes.
+     */
+    private static long megabytes(String text) {
+        long megabytes;
+        try {
+            megabytes = Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cantidad de megabytes inválida: " + text);
+        }
+        if (megabytes < 0 || megabytes > Long.MAX_VALUE / (1024 * 1024)) {
+            throw new IllegalArgumentException("Cantidad de megabytes fuera de rango: " + text);
+        }
+        return megabytes;
+    }
+
+    static void printMetrics(PrintStream out, TokenCache cache) {
+        LexerMetrics.Snapshot metrics = LexerMetrics.snapshot();
+        out.println("METRICAS: " + metrics.totalTokens() + " tokens, " + metrics.commentBytes() + " bytes de comentarios, "
+                + metrics.whitespaceBytes() + " bytes de espacios, " + metrics.exceptions() + " excepciones");
+        metrics.tokens().forEach((kind, count) -> {
+            if (count > 0) {
+                out.println("  " + kind.getName() + ": " + count);
+            }
+        });
+        if (cache != null) {
+            out.println("CACHE: " + cache.getHits() + " aciertos, " + cache.getMisses() + " fallos, "
+                    + cache.getFailures() + " entradas que no se pudieron leer o guardar");
+        }
+    }
+
+    /**
+     * Lexes one file and writes the same report main prints for it: a header followed by
+     * either the token listing or the error. When recovering, every error of the file is listed.
+     */
+    static BatchLexer.FileReport report(String path, String name, BatchLexer.Options options, OutputStream out, int bufferSize) {
+        return report(name, new File(path).length(), options, out, bufferSize, () -> open(new LexicalAnalyzer(path), options), () -> {
+            if (options.symbols() != null) {
+                return open(new LexicalAnalyzer(path), options).tokenize();
+            }
+            if (options.cache() != null) {
+                return options.cache().tokenize(path);
+            }
+            // Large files are split and lexed in parallel; small ones are lexed sequentially
+            return ParallelLexer.tokenize(path);
+        });
+    }
+
+    /**
+     * Same as {@link #report(String, String, BatchLexer.Options, OutputStream, int)} for source code
+     * that is already in memory instead of in a file.
+     */
+    static BatchLexer.FileReport report(String name, byte[] content, BatchLexer.Options options, OutputStream out, int bufferSize) {
+        return report(name, content.length, options, out, bufferSize, () -> open(new LexicalAnalyzer(content), options),
+                () -> open(new LexicalAnalyzer(content), options).tokenize());
+    }
+
+    /**
+     * Makes the lexer intern into the batch's shared symbol table, if there is one.
+     */
+    private static LexicalAnalyzer open(LexicalAnalyzer lexer, BatchLexer.Options options) {
+        lexer.setSymbolTable(options.symbols());
+        return lexer;
     }
 
-    // Create execute method
-    public static void execute(String path) throws FileNotFoundException, IOException {
-        LexicalAnalyzer lexicalAnalyzer = new LexicalAnalyzer(path);
-
-        // Create a linked list to store tokens
-        LinkedList<Token> tokens = new LinkedList<>();
-
-        // Read tokens until EOF
-        Token token;
-        do  {
-            token = lexicalAnalyzer.nextToken();
-            tokens.add(token);
-        } while (!token.getToken().equals("EOF"));
-
-        System.out.print(Color.GREEN_BOLD);
-        System.out.println("CORRECTO: ANALISIS LEXICO");
-        System.out.print(Color.RESET);
-        for (Token t : tokens) {
-            printStick(); System.out.print(t.getToken());
-            printStick(); System.out.print(t.getLexeme());
-            printStick(); System.out.print("LINEA " + t.getRow());
-            System.out.print(" (COLUMNA " + t.getColumn() + ")");
-            printStick(); System.out.println();
+    /**
+     * A lexing step that may fail to read its source.
+     */
+    private interface Lexing<T> {
+        T run() throws IOException;
+    }
+
+    private static BatchLexer.FileReport report(String name, long size, BatchLexer.Options options, OutputStream out, int bufferSize,
+                                                Lexing<LexicalAnalyzer> open, Lexing<TokenBuffer> tokenize) {
+        LexFileEvent event = new LexFileEvent();
+        event.begin();
+        BatchLexer.FileReport report = lexAndPrint(name, options, out, bufferSize, open, tokenize);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = name;
+            event.bytes = size;
+            event.tokens = report.tokens();
+            event.errors = report.errors();
+            event.commit();
         }
+        return report;
     }
 
-    public static void printStick() {
-        System.out.print(Color.GREEN_BOLD);
-        System.out.print(" | ");
-        System.out.print(Color.RESET);
+    private static BatchLexer.FileReport lexAndPrint(String name, BatchLexer.Options options, OutputStream out, int bufferSize,
+                                                     Lexing<LexicalAnalyzer> open, Lexing<TokenBuffer> tokenize) {
+        TokenPrinter printer = new TokenPrinter(out, options.format(), options.color(), options.charset(), bufferSize);
+        try {
+            printer.printHeader(name);
+            try {
+                TokenBuffer tokens;
+                if (options.recovering()) {
+                    LexicalAnalyzer lexicalAnalyzer = open.run();
+                    lexicalAnalyzer.setRecovering(true);
+                    tokens = lexicalAnalyzer.tokenize();
+                    if (!lexicalAnalyzer.getDiagnostics().isEmpty()) {
+                        for (LexicalException e : lexicalAnalyzer.getDiagnostics()) {
+                            printer.printError(name, e);
+                        }
+                        return new BatchLexer.FileReport(tokens.size() - 1, lexicalAnalyzer.getDiagnostics().size());
+                    }
+                } else {
+                    tokens = tokenize.run();
+                }
+                printer.printTokens(name, tokens);
+                // The EOF token is listed but not counted
+                return new BatchLexer.FileReport(tokens.size() - 1, 0);
+            } catch (LexicalException e) {
+                // Print the error message from the LexicalException
+                printer.printError(name, e);
+            } catch (FileNotFoundException e) {
+                // Handle file not found exception
+                printer.printFailure(name, "Archivo no encontrado");
+            } catch (IOException e) {
+                // Handle other IO exceptions
+                printer.printFailure(name, "Error de entrada/salida al procesar el archivo");
+            }
+            return new BatchLexer.FileReport(0, 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                printer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
     enum Color {
@@ -0,0 +1,127 @@
+package compiler;
+
+import compiler.LexicalAnalyzer.LexicalAnalyzer;
+import compiler.LexicalAnalyzer.TokenBuffer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lexes generated corpora of doubling size and reports time, throughput, peak heap and GC time for
+ * each one. Lexing cost and heap use should grow linearly with the input, so the time and heap per
+ * byte should stay flat; steps that cost noticeably more per byte than the cheapest one are flagged.
+ */
+public class SoakRunner {
+
+    /**
+     * Steps whose time or heap per byte exceeds the best step by this factor are flagged as superlinear.
+     */
+    private static final double SUPERLINEAR_FACTOR = 1.5;
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    /**
+     * Measurements of one corpus size.
+     */
+    public record Step(long bytes, long tokens, long elapsedNanos, long peakHeapBytes, long gcMillis) {
+
+        public double megabytesPerSecond() {
+            return bytes / MEGABYTE / (elapsedNanos / 1e9);
+        }
+
+        public double nanosPerByte() {
+            return (double) elapsedNanos / bytes;
+        }
+
+        public double heapPerByte() {
+            return (double) peakHeapBytes / bytes;
+        }
+    }
+
+    private SoakRunner() {
+    }
+
+    /**
+     * Measures corpora from {@code initialSize} bytes, doubling up to {@code maxSize}. Sizes above
+     * {@link FileScanner#MAX_SIZE} cannot be lexed, so {@code maxSize} is capped there and a corpus
+     * that still ends up larger is reported as unsupported.
+     */
+    public static List<Step> run(PrintStream out, long initialSize, long maxSize, CorpusGenerator.Mix mix) throws IOException {
+        if (maxSize > FileScanner.MAX_SIZE) {
+            out.printf("AVISO: el tamaño máximo se limita a %.1f MB, el mayor archivo que se puede analizar%n",
+                    FileScanner.MAX_SIZE / MEGABYTE);
+            maxSize = FileScanner.MAX_SIZE;
+        }
+        Path file = Files.createTempFile("tinys-soak-", ".s");
+        List<Step> steps = new ArrayList<>();
+        try {
+            // Warm up on the smallest corpus so the first step does not pay for JIT compilation
+            new CorpusGenerator(mix, initialSize).write(file, initialSize);
+            for (int i = 0; i < 3; i++) {
+                new LexicalAnalyzer(file.toString()).tokenize();
+            }
+
+            double bestTime = Double.MAX_VALUE;
+            double bestHeap = Double.MAX_VALUE;
+            for (long size = initialSize; size <= maxSize; size *= 2) {
+                long bytes = new CorpusGenerator(mix, size).write(file, size);
+                if (bytes > FileScanner.MAX_SIZE) {
+                    // The generator finishes the class it started, so it can write a little more than asked
+                    out.printf("TAMAÑO %8.1f MB | NO SOPORTADO: excede el mayor archivo que se puede analizar%n", bytes / MEGABYTE);
+                    break;
+                }
+                Step step = measure(file, bytes);
+                steps.add(step);
+                bestTime = Math.min(bestTime, step.nanosPerByte());
+                bestHeap = Math.min(bestHeap, step.heapPerByte());
+                boolean superlinear = step.nanosPerByte() > bestTime * SUPERLINEAR_FACTOR
+                        || step.heapPerByte() > bestHeap * SUPERLINEAR_FACTOR;
+                out.printf("TAMAÑO %8.1f MB | TOKENS %,12d | TIEMPO %,8d ms | %7.1f MB/s | HEAP MAX %8.1f MB | GC %,6d ms%s%n",
+                        step.bytes() / MEGABYTE, step.tokens(), step.elapsedNanos() / 1_000_000, step.megabytesPerSecond(),
+                        step.peakHeapBytes() / MEGABYTE, step.gcMillis(), superlinear ? " | SUPERLINEAL" : "");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return steps;
+    }
+
+    private static Step measure(Path file, long bytes) throws IOException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        long gcBefore = gcMillis();
+        long start = System.nanoTime();
+        TokenBuffer tokens = new LexicalAnalyzer(file.toString()).tokenize();
+        long elapsed = System.nanoTime() - start;
+        long gc = gcMillis() - gcBefore;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return new Step(bytes, tokens.size(), elapsed, peak, gc);
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,329 @@
+package compiler;
+
+import compiler.LexicalAnalyzer.LexicalException;
+import compiler.LexicalAnalyzer.TokenBuffer;
+import compiler.LexicalAnalyzer.TokenKind;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes lexer results through one large buffer, in one of several formats:
+ * <ul>
+ *     <li>{@code TEXT}: the human-readable listing, with or without ANSI colors.</li>
+ *     <li>{@code JSONL}: one JSON object per token or error, with {@code file}, {@code token},
+ *     {@code lexeme}, {@code row} and {@code column} fields (errors carry {@code error} instead of {@code token}).</li>
+ *     <li>{@code TSV}: {@code file, token, lexeme, row, column} columns; errors use {@code ERROR} as the
+ *     token and add the description as a sixth column. Tabs, newlines and backslashes are escaped.</li>
+ *     <li>{@code BINARY}: big-endian records. A file is {@code 'F'}, its name (modified UTF-8), the token
+ *     count and then, per token, the kind ordinal (byte), offset, length, row and column (ints) followed
+ *     by the {@code length} lexeme bytes when the kind has no fixed lexeme. An error is {@code 'E'}, the
+ *     file name, description and lexeme (modified UTF-8), row and column.</li>
+ * </ul>
+ * Machine formats are always UTF-8; the text listing uses the given charset.
+ */
+public class TokenPrinter implements Flushable {
+
+    public enum Format {
+        TEXT, JSONL, TSV, BINARY;
+
+        /**
+         * @throws IllegalArgumentException If the name is not one of {@link #choices()}.
+         */
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Formato desconocido: " + name + ", se acepta " + choices());
+        }
+
+        /**
+         * The accepted format names, for usage messages: {@code text|jsonl|tsv|binary}.
+         */
+        public static String choices() {
+            StringBuilder choices = new StringBuilder();
+            for (Format format : values()) {
+                if (!choices.isEmpty()) {
+                    choices.append('|');
+                }
+                choices.append(format.name().toLowerCase(Locale.ROOT));
+            }
+            return choices.toString();
+        }
+
+        public boolean isMachineReadable() {
+            return this != TEXT;
+        }
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final Format format;
+    private final boolean color;
+    private final Writer writer;
+    private final DataOutputStream binary;
+    private byte[] scratch = new byte[256];
+
+    public TokenPrinter(OutputStream out, Format format, boolean color, Charset charset) {
+        this(out, format, color, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TokenPrinter(OutputStream out, Format format, boolean color, Charset charset, int bufferSize) {
+        this.format = format;
+        this.color = color && format == Format.TEXT;
+        if (format == Format.BINARY) {
+            this.binary = new DataOutputStream(new BufferedOutputStream(out, bufferSize));
+            this.writer = null;
+        } else {
+            Charset encoding = format.isMachineReadable() ? StandardCharsets.UTF_8 : charset;
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, encoding), bufferSize);
+            this.binary = null;
+        }
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Writes the tokens of a file that was lexed without errors. In the text listing they go after
+     * the {@link #printHeader(String) header}, which callers write themselves.
+     */
+    public void printTokens(String name, TokenBuffer tokens) throws IOException {
+        switch (format) {
+            case TEXT -> printText(name, tokens);
+            case JSONL -> printJsonLines(name, tokens);
+            case TSV -> printTabSeparated(name, tokens);
+            case BINARY -> printBinary(name, tokens);
+        }
+    }
+
+    private void printText(String name, TokenBuffer tokens) throws IOException {
+        colored(Main.Color.GREEN_BOLD, "CORRECTO: ANALISIS LEXICO\n");
+        TokenBuffer.Cursor t = tokens.cursor();
+        while (t.next()) {
+            stick();
+            writer.write(t.kind().getName());
+            stick();
+            writer.write(t.lexeme());
+            stick();
+            writer.write("LINEA ");
+            writer.write(Integer.toString(t.row()));
+            writer.write(" (COLUMNA ");
+            writer.write(Integer.toString(t.column()));
+            writer.write(')');
+            stick();
+            writer.write('\n');
+        }
+    }
+
+    private void printJsonLines(String name, TokenBuffer tokens) throws IOException {
+        TokenBuffer.Cursor t = tokens.cursor();
+        while (t.next()) {
+            writer.write("{\"file\":");
+            jsonString(name);
+            writer.write(",\"token\":\"");
+            writer.write(t.kind().getName());
+            writer.write("\",\"lexeme\":");
+            jsonString(t.lexeme());
+            writer.write(",\"row\":");
+            writer.write(Integer.toString(t.row()));
+            writer.write(",\"column\":");
+            writer.write(Integer.toString(t.column()));
+            writer.write("}\n");
+        }
+    }
+
+    private void printTabSeparated(String name, TokenBuffer tokens) throws IOException {
+        TokenBuffer.Cursor t = tokens.cursor();
+        while (t.next()) {
+            tsvField(name);
+            writer.write('\t');
+            writer.write(t.kind().getName());
+            writer.write('\t');
+            tsvField(t.lexeme());
+            writer.write('\t');
+            writer.write(Integer.toString(t.row()));
+            writer.write('\t');
+            writer.write(Integer.toString(t.column()));
+            writer.write('\n');
+        }
+    }
+
+    private void printBinary(String name, TokenBuffer tokens) throws IOException {
+        ByteBuffer source = tokens.getSource();
+        binary.writeByte('F');
+        binary.writeUTF(name);
+        binary.writeInt(tokens.size());
+        TokenBuffer.Cursor t = tokens.cursor();
+        while (t.next()) {
+            TokenKind kind = t.kind();
+            binary.writeByte(kind.ordinal());
+            binary.writeInt(t.offset());
+            binary.writeInt(t.length());
+            binary.writeInt(t.row());
+            binary.writeInt(t.column());
+            if (!kind.hasFixedLexeme()) {
+                writeSource(source, t.offset(), t.length());
+            }
+        }
+    }
+
+    private void writeSource(ByteBuffer source, int offset, int length) throws IOException {
+        if (source.hasArray()) {
+            binary.write(source.array(), source.arrayOffset() + offset, length);
+            return;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        source.get(offset, scratch, 0, length);
+        binary.write(scratch, 0, length);
+    }
+
+    /**
+     * Writes a lexical error found in a file.
+     */
+    public void printError(String name, LexicalException error) throws IOException {
+        switch (format) {
+            case TEXT -> printErrorMessage(error.getMessage());
+            case JSONL -> {
+                writer.write("{\"file\":");
+                jsonString(name);
+                writer.write(",\"error\":");
+                jsonString(error.getDescription());
+                writer.write(",\"lexeme\":");
+                jsonString(error.getInvalidLexeme());
+                writer.write(",\"row\":");
+                writer.write(Integer.toString(error.getRow()));
+                writer.write(",\"column\":");
+                writer.write(Integer.toString(error.getColumn()));
+                writer.write("}\n");
+            }
+            case TSV -> {
+                tsvField(name);
+                writer.write("\tERROR\t");
+                tsvField(error.getInvalidLexeme());
+                writer.write('\t');
+                writer.write(Integer.toString(error.getRow()));
+                writer.write('\t');
+                writer.write(Integer.toString(error.getColumn()));
+                writer.write('\t');
+                tsvField(error.getDescription());
+                writer.write('\n');
+            }
+            case BINARY -> {
+                binary.writeByte('E');
+                binary.writeUTF(name);
+                binary.writeUTF(error.getDescription());
+                binary.writeUTF(error.getInvalidLexeme());
+                binary.writeInt(error.getRow());
+                binary.writeInt(error.getColumn());
+            }
+        }
+    }
+
+    /**
+     * Writes an error that is not lexical, such as a missing file, as an error without position.
+     */
+    public void printFailure(String name, String description) throws IOException {
+        if (format == Format.TEXT) {
+            printErrorMessage(description + ": " + name);
+        } else {
+            printError(name, new LexicalException(description, name, 0, 0));
+        }
+    }
+
+    /**
+     * Writes the line that introduces a file in the text listing; machine formats have no header.
+     */
+    public void printHeader(String name) throws IOException {
+        if (format == Format.TEXT) {
+            colored(Main.Color.ORANGE_BOLD, "\nAnalizando archivo: " + name);
+            writer.write('\n');
+        }
+    }
+
+    private void printErrorMessage(String message) throws IOException {
+        colored(Main.Color.RED_BOLD, message);
+        writer.write('\n');
+    }
+
+    /**
+     * Writes the closing summary of a text listing.
+     */
+    public void printSummary(String summary) throws IOException {
+        colored(Main.Color.ORANGE_BOLD, "\n" + summary);
+        writer.write('\n');
+    }
+
+    private void stick() throws IOException {
+        colored(Main.Color.GREEN_BOLD, " | ");
+    }
+
+    private void colored(Main.Color code, String text) throws IOException {
+        if (color) {
+            writer.write(code.toString());
+            writer.write(text);
+            writer.write(Main.Color.RESET.toString());
+        } else {
+            writer.write(text);
+        }
+    }
+
+    private void jsonString(String text) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    private void tsvField(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> writer.write("\\\\");
+                case '\t' -> writer.write("\\t");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                default -> writer.write(c);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        } else {
+            binary.flush();
+        }
+    }
+}
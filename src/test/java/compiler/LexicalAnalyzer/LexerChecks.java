@@ -0,0 +1,413 @@
+package compiler.LexicalAnalyzer;
+
+import compiler.BatchLexer;
+import compiler.FileScanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Comprobaciones de los caminos del analizador que no se ven en el listado de tokens de un archivo:
+ * cada una analiza el archivo de otra forma y compara el resultado (tokens con sus posiciones y el valor
+ * de los literales numéricos, o el error) con el del análisis secuencial. Se corren sobre los archivos de
+ * {@code src/test/lexical}, o los que se indiquen, con
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=compiler.LexicalAnalyzer.LexerChecks}.
+ */
+public final class LexerChecks {
+
+    /**
+     * Una comprobación sobre el contenido de un archivo.
+     */
+    private interface Check {
+        /**
+         * @return {@code null} si el resultado es el esperado, o la descripción de la diferencia.
+         */
+        String run(byte[] content);
+    }
+
+    private record Named(String name, Check check) {
+    }
+
+    /**
+     * Una forma de pasarle el código al analizador reutilizado.
+     */
+    private record Source(String name, Supplier<TokenBuffer> lexing) {
+    }
+
+    private static final List<Named> CHECKS = List.of(
+            new Named("motores", LexerChecks::checkEngines),
+            new Named("partes", LexerChecks::checkChunks),
+            new Named("ediciones", LexerChecks::checkEdits),
+            new Named("trivia", LexerChecks::checkTrivia),
+            new Named("lookahead", LexerChecks::checkLookahead),
+            new Named("fuentes", LexerChecks::checkSources)
+    );
+
+    /**
+     * Analizador que {@link #checkSources(byte[])} reutiliza para todos los archivos.
+     */
+    private static final LexicalAnalyzer REUSED = new LexicalAnalyzer(LexicalAnalyzer.Engine.CLASSIC);
+
+    private LexerChecks() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> checked = args.length > 0 ? Arrays.asList(args)
+                : List.of("src/test/java/fibonacci.s", "src/test/lexical");
+        if (run(BatchLexer.collect(checked), System.out) > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Corre todas las comprobaciones sobre cada archivo e informa una línea por cada una.
+     * @return La cantidad de comprobaciones que fallaron.
+     */
+    public static int run(List<Path> files, PrintStream out) throws IOException {
+        int failures = 0;
+        for (Path file : files) {
+            byte[] content = Files.readAllBytes(file);
+            for (Named named : CHECKS) {
+                String failure;
+                try {
+                    failure = named.check().run(content);
+                } catch (RuntimeException e) {
+                    failure = "excepción inesperada " + e;
+                }
+                if (failure == null) {
+                    out.println("OK    " + named.name() + " " + file);
+                } else {
+                    out.println("FALLA " + named.name() + " " + file + ": " + failure);
+                    failures++;
+                }
+            }
+        }
+        out.println(failures == 0 ? "Todas las comprobaciones pasaron" : failures + " comprobaciones fallaron");
+        return failures;
+    }
+
+    /**
+     * El motor de tablas da los mismos tokens, valores y errores que el clásico, también en el modo de recuperación.
+     */
+    private static String checkEngines(byte[] content) {
+        String expected = sequential(content);
+        String actual = outcome(() -> new LexicalAnalyzer(LexicalAnalyzer.Engine.TABLE).reset(content).tokenize());
+        if (!expected.equals(actual)) {
+            return "con el motor de tablas " + difference(expected, actual);
+        }
+        expected = recovering(LexicalAnalyzer.Engine.CLASSIC, content);
+        actual = recovering(LexicalAnalyzer.Engine.TABLE, content);
+        return expected.equals(actual) ? null : "recuperando con el motor de tablas " + difference(expected, actual);
+    }
+
+    /**
+     * Tokens y errores del análisis en modo de recuperación.
+     */
+    private static String recovering(LexicalAnalyzer.Engine engine, byte[] content) {
+        LexicalAnalyzer lexer = new LexicalAnalyzer(engine);
+        lexer.setRecovering(true);
+        StringBuilder text = new StringBuilder(outcome(() -> lexer.reset(content).tokenize()));
+        for (LexicalException e : lexer.getDiagnostics()) {
+            text.append("ERROR ").append(e.getMessage()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * El análisis en paralelo da lo mismo que el secuencial con partes de cualquier tamaño, así que
+     * los cortes caen también dentro de strings y comentarios.
+     */
+    private static String checkChunks(byte[] content) {
+        if (content.length == 0) {
+            return null;
+        }
+        String expected = sequential(content);
+        for (int chunkSize = 1; chunkSize < content.length; chunkSize = chunkSize < 64 ? chunkSize + 1 : chunkSize * 2) {
+            int size = chunkSize;
+            String actual = outcome(() -> ParallelLexer.tokenize(new FileScanner(content), LexicalAnalyzer.Engine.CLASSIC,
+                    ForkJoinPool.commonPool(), size));
+            if (!expected.equals(actual)) {
+                return "con partes de " + chunkSize + " bytes " + difference(expected, actual);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Después de cada cambio los tokens de {@link IncrementalLexer} son los de analizar el código
+     * modificado completo. Cada cambio toca dos tokens seguidos (los corta, los une, borra desde uno
+     * hasta el otro o abre un comentario o un string) y se deshace enseguida, así que el mismo documento
+     * pasa también por errores léxicos y vuelve del análisis completo que sigue a uno.
+     */
+    private static String checkEdits(byte[] content) {
+        if (content.length == 0) {
+            return null;
+        }
+        String expected = sequential(content);
+        IncrementalLexer document;
+        try {
+            document = new IncrementalLexer(content);
+        } catch (LexicalException e) {
+            String actual = "ERROR " + e.getMessage();
+            return expected.equals(actual) ? null : "al crear el documento " + difference(expected, actual);
+        }
+        String actual = outcome(document::tokens);
+        if (!expected.equals(actual)) {
+            return "al crear el documento " + difference(expected, actual);
+        }
+        byte[] text = content;
+        TokenBuffer original = new LexicalAnalyzer(content).tokenize();
+        for (int i = 0; i + 2 < original.size(); i++) {
+            int start = original.start(i);
+            int middle = start + original.length(i) / 2;
+            int end = original.end(i);
+            int nextStart = original.start(i + 1);
+            int nextMiddle = nextStart + original.length(i + 1) / 2;
+            TextEdit[] edits = {
+                    TextEdit.delete(middle, nextMiddle - middle),
+                    TextEdit.insert(middle, " "),
+                    TextEdit.delete(end, nextStart - end),
+                    TextEdit.insert(start, "/*"),
+                    TextEdit.insert(nextStart, "\""),
+                    new TextEdit(start, nextStart - start, "x1 ")
+            };
+            for (TextEdit edit : edits) {
+                String removed = removedText(text, edit);
+                if (removed == null) {
+                    continue;
+                }
+                TextEdit undo = new TextEdit(edit.offset(), edit.insertedText().getBytes(StandardCharsets.UTF_8).length, removed);
+                for (TextEdit step : new TextEdit[]{edit, undo}) {
+                    text = applyTo(text, step);
+                    expected = sequential(text);
+                    actual = outcome(() -> document.apply(step));
+                    if (!expected.equals(actual)) {
+                        return "después de " + step + " " + difference(expected, actual);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * En el modo que conserva la trivia, la trivia anterior, el lexema y la trivia final de cada token,
+     * uno tras otro, vuelven a dar el código fuente exacto, y las partes de cada tramo lo cubren completo.
+     * Los archivos con errores no se comprueban: lo salteado por un error no es trivia.
+     */
+    private static String checkTrivia(byte[] content) {
+        if (content.length == 0 || sequential(content).startsWith("ERROR")) {
+            return null;
+        }
+        LexicalAnalyzer lexer = new LexicalAnalyzer(content);
+        lexer.setPreservingTrivia(true);
+        StringBuilder text = new StringBuilder();
+        Token token;
+        do {
+            token = lexer.nextToken();
+            for (Trivia trivia : new Trivia[]{token.getLeadingTrivia(), token.getTrailingTrivia()}) {
+                StringBuilder pieces = new StringBuilder();
+                for (Trivia.Piece piece : trivia.pieces()) {
+                    pieces.append(new String(content, piece.offset(), piece.length(), StandardCharsets.UTF_8));
+                }
+                if (!pieces.toString().equals(trivia.getText())) {
+                    return "las partes de la trivia '" + trivia.getText() + "' no la cubren: '" + pieces + "'";
+                }
+            }
+            String lexeme = token.getKind() == TokenKind.STR_LITERAL ? '"' + token.getLexeme() + '"' : token.getLexeme();
+            text.append(token.getLeadingTrivia().getText()).append(lexeme).append(token.getTrailingTrivia().getText());
+        } while (token.getKind() != TokenKind.EOF);
+        String expected = new String(content, StandardCharsets.UTF_8);
+        if (!expected.equals(text.toString())) {
+            return "el texto reconstruido difiere " + difference(expected, text.toString());
+        }
+        return null;
+    }
+
+    /**
+     * {@link TokenLookahead} con poca capacidad da los mismos tokens que el análisis secuencial mirando
+     * siempre todo el lookahead que entra. Con una marca activa, pedir más allá de la capacidad falla
+     * sin perder nada: al volver a la marca los tokens siguen siendo los mismos.
+     */
+    private static String checkLookahead(byte[] content) {
+        if (content.length == 0) {
+            return null;
+        }
+        int capacity = 4;
+        String expected = sequential(content);
+        StringBuilder walked = new StringBuilder();
+        TokenLookahead lookahead = new TokenLookahead(new LexicalAnalyzer(content), capacity);
+        try {
+            TokenKind kind;
+            do {
+                for (int k = capacity; k >= 1; k--) {
+                    lookahead.peek(k);
+                }
+                kind = lookahead.peek(1);
+                walked.append(kind).append(' ').append(lookahead.offset(1)).append(' ').append(lookahead.length(1))
+                        .append(' ').append(lookahead.row(1)).append(':').append(lookahead.column(1));
+                if (kind.isNumeric()) {
+                    Token token = lookahead.token(1);
+                    walked.append(" = ").append(kind == TokenKind.INT_LITERAL ? token.getIntValue() : token.getDoubleValue());
+                }
+                walked.append('\n');
+                lookahead.consume();
+            } while (kind != TokenKind.EOF);
+        } catch (LexicalException e) {
+            walked.setLength(0);
+            walked.append("ERROR ").append(e.getMessage());
+        }
+        if (!expected.equals(walked.toString())) {
+            return "recorriendo con lookahead de " + capacity + " " + difference(expected, walked.toString());
+        }
+        if (expected.startsWith("ERROR")) {
+            return null;
+        }
+
+        TokenBuffer tokens = new LexicalAnalyzer(content).tokenize();
+        int eof = tokens.size() - 1;
+        lookahead = new TokenLookahead(new LexicalAnalyzer(content), capacity);
+        for (int position = 0; position < eof; position++) {
+            int outer = lookahead.mark();
+            try {
+                lookahead.peek(capacity + 1);
+                if (position + capacity <= eof) {
+                    return "con una marca en el token " + position + " se pudo mirar más allá de la capacidad";
+                }
+            } catch (IllegalStateException e) {
+                if (position + capacity > eof) {
+                    return "en el token " + position + " no se pudo mirar hasta el EOF: " + e.getMessage();
+                }
+            }
+            lookahead.consume();
+            int inner = lookahead.mark();
+            for (int i = 1; i < capacity; i++) {
+                lookahead.consume();
+            }
+            lookahead.reset(inner);
+            lookahead.release(inner);
+            if (lookahead.index() != Math.min(position + 1, eof) || lookahead.offset(1) != tokens.offset(Math.min(position + 1, eof))) {
+                return "al volver a la marca interna del token " + (position + 1) + " el token es otro";
+            }
+            lookahead.reset(outer);
+            lookahead.release(outer);
+            if (lookahead.index() != position || lookahead.offset(1) != tokens.offset(position)
+                    || lookahead.peek(capacity) != tokens.kind(Math.min(position + capacity - 1, eof))) {
+                return "al volver a la marca del token " + position + " los tokens son otros";
+            }
+            lookahead.consume();
+        }
+        return null;
+    }
+
+    /**
+     * Un mismo analizador, reutilizado con {@code reset} para todos los archivos y todas las formas de
+     * pasarle el código, da lo mismo que uno nuevo. Se reutiliza también después de un error.
+     */
+    private static String checkSources(byte[] content) {
+        String expected = sequential(content);
+        ByteBuffer direct = ByteBuffer.allocateDirect(content.length).put(content).flip();
+        byte[] padded = new byte[content.length + 2];
+        System.arraycopy(content, 0, padded, 1, content.length);
+        ByteBuffer middle = ByteBuffer.wrap(padded, 1, content.length);
+        String text = new String(content, StandardCharsets.UTF_8);
+        boolean validText = Arrays.equals(text.getBytes(StandardCharsets.UTF_8), content);
+
+        List<Source> sources = new ArrayList<>(List.of(
+                new Source("byte[]", () -> REUSED.reset(content).tokenize()),
+                new Source("ByteBuffer directo", () -> REUSED.reset(direct.duplicate()).tokenize()),
+                new Source("ByteBuffer desde la posición 1", () -> REUSED.reset(middle.duplicate()).tokenize()),
+                new Source("InputStream", () -> {
+                    try {
+                        return REUSED.reset(new ByteArrayInputStream(content)).tokenize();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+        ));
+        if (validText) {
+            sources.add(new Source("CharSequence", () -> REUSED.reset(new StringBuilder(text)).tokenize()));
+        }
+        for (Source source : sources) {
+            String actual = outcome(source.lexing());
+            if (!expected.equals(actual)) {
+                return "con " + source.name() + " " + difference(expected, actual);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Texto que borra el cambio, o {@code null} si no es ASCII y no se puede volver a insertar igual.
+     */
+    private static String removedText(byte[] text, TextEdit edit) {
+        for (int i = edit.offset(); i < edit.offset() + edit.removedLength(); i++) {
+            if (text[i] < 0) {
+                return null;
+            }
+        }
+        return new String(text, edit.offset(), edit.removedLength(), StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] applyTo(byte[] text, TextEdit edit) {
+        byte[] inserted = edit.insertedText().getBytes(StandardCharsets.UTF_8);
+        int tail = edit.offset() + edit.removedLength();
+        byte[] result = new byte[text.length - edit.removedLength() + inserted.length];
+        System.arraycopy(text, 0, result, 0, edit.offset());
+        System.arraycopy(inserted, 0, result, edit.offset(), inserted.length);
+        System.arraycopy(text, tail, result, edit.offset() + inserted.length, text.length - tail);
+        return result;
+    }
+
+    private static String sequential(byte[] content) {
+        return outcome(() -> new LexicalAnalyzer(content).tokenize());
+    }
+
+    /**
+     * Tokens con sus posiciones, fila, columna y valor, uno por línea, o el error del análisis.
+     */
+    private static String outcome(Supplier<TokenBuffer> lexing) {
+        TokenBuffer tokens;
+        try {
+            tokens = lexing.get();
+        } catch (LexicalException e) {
+            return "ERROR " + e.getMessage();
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            TokenKind kind = tokens.kind(i);
+            text.append(kind).append(' ').append(tokens.offset(i)).append(' ').append(tokens.length(i))
+                    .append(' ').append(tokens.row(i)).append(':').append(tokens.column(i));
+            if (kind.isNumeric()) {
+                text.append(" = ").append(kind == TokenKind.INT_LITERAL ? tokens.intValue(i) : tokens.doubleValue(i));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Primera línea en que difieren dos resultados.
+     */
+    private static String difference(String expected, String actual) {
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        for (int i = 0; i < Math.min(expectedLines.length, actualLines.length); i++) {
+            if (!expectedLines[i].equals(actualLines[i])) {
+                return "en el token " + i + ": se esperaba '" + expectedLines[i] + "' y se obtuvo '" + actualLines[i] + "'";
+            }
+        }
+        return "se esperaban " + expectedLines.length + " líneas y se obtuvieron " + actualLines.length;
+    }
+}
@@ -0,0 +1,8 @@
+/* comentario con "comillas"
+   y otra linea */
+class Falla {
+    pub Str a; // "
+}
+impl Falla {
+    .() {
+        a = "sin cerrar
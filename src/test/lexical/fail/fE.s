@@ -0,0 +1,3 @@
+// error despues de strings y comentarios
+a = "/*"; b = "*/"; /* " */
+c = 10 @ 2;
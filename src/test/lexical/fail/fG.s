@@ -0,0 +1,9 @@
+// el mayor entero que entra en un long y el siguiente
+class Grande {
+}
+impl Grande {
+    .() {
+        a = 9223372036854775807;
+        b = 9223372036854775808;
+    }
+}
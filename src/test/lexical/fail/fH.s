@@ -0,0 +1,10 @@
+// dobles con mas digitos de los que entran en un long, y uno mayor que el maximo
+class Enorme {
+}
+impl Enorme {
+    .() {
+        a = 12345678901234567890123.456;
+        b = 0.000000000000000000000000000001;
+        c = 1000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000.0;
+    }
+}
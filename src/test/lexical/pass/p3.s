@@ -0,0 +1,20 @@
+// Correcto: strings y comentarios con delimitadores de otros dentro
+/* Un comentario de bloque con "comillas", // barras,
+   'apostrofos' y * sueltos
+   que ocupa varias lineas */
+class Cortes {
+    pub Str a; // un "string" dentro de un comentario de linea */
+    pub Str b;
+}
+impl Cortes {
+    .() {
+        a = "/* no es comentario */";
+        b = "// tampoco";
+        (IO.out_str(a)); /* "*/ (IO.out_str(b));
+        (IO.out_str("*/ // /* "));
+    }
+}
+start {
+    Cortes c;
+    c = new Cortes();
+}
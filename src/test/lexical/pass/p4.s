@@ -0,0 +1,12 @@
+// Correcto: espacios y comentarios en todas las posiciones
+
+	class Trivia /* entre tokens */ {
+    pub Int a;   // final de linea
+    pub Int b; /* empieza en la linea
+       y sigue en otra */ pub Int c;
+
+
+    /**/ pub Bool d ; //
+}	 
+
+  start{ a = 1 ;}   /* sin salto de linea al final */ 
\ No newline at end of file
@@ -0,0 +1,19 @@
+// Correcto: literales numéricos cuyo valor se calcula al leerlos
+class Numeros {
+    pub Int a;
+    pub Double b;
+}
+impl Numeros {
+    .() {
+        a = 0;
+        a = 007;
+        a = 9223372036854775807;
+        b = 0.5;
+        b = 3.14159;
+        b = 123456789.000000001;
+        b = 9007199254740993.0;
+        b = 12345678901234567890123.456;
+        b = 0.000000000000000000000000000001;
+        b = 179769313486231570000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000.0;
+    }
+}